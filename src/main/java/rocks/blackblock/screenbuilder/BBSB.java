@@ -15,6 +15,7 @@ import rocks.blackblock.screenbuilder.textures.BaseTexture;
 import rocks.blackblock.screenbuilder.textures.GuiTexture;
 import rocks.blackblock.screenbuilder.textures.IconTexture;
 import rocks.blackblock.screenbuilder.textures.WidgetTexture;
+import rocks.blackblock.screenbuilder.textures.YOffsetManifest;
 
 import static com.diogonunes.jcolor.Attribute.*;
 
@@ -358,6 +359,9 @@ public class BBSB implements ModInitializer {
 
             BBSB.HAS_INITIALIZED = true;
         });
+
+        // Remember which Y offsets were used (if enabled)
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> YOffsetManifest.SHARED.save());
     }
 
     private static void registerIconsForRow(ScreenBuilder dummy, int row, int row_offset, int jitter) {
@@ -37,6 +37,7 @@ import rocks.blackblock.screenbuilder.slots.*;
 import rocks.blackblock.screenbuilder.text.Font;
 import rocks.blackblock.screenbuilder.text.TextBuilder;
 import rocks.blackblock.screenbuilder.text.TextGroup;
+import rocks.blackblock.screenbuilder.text.TitleTemplate;
 import rocks.blackblock.screenbuilder.textures.GuiTexture;
 import rocks.blackblock.screenbuilder.unit.Unit;
 import rocks.blackblock.screenbuilder.widgets.Widget;
@@ -139,6 +140,9 @@ public class ScreenBuilder implements NamedScreenHandlerFactory {
     // Keep track of the slots that have been used
     protected Map<Integer, Boolean> used_slots = new HashMap<>();
 
+    // The compiled static part of the title (only once registered)
+    private volatile CompiledTitle compiled_title = null;
+
     /**
      * Create a new ScreenBuilder with the 9x6 generic container
      *
@@ -163,6 +167,15 @@ public class ScreenBuilder implements NamedScreenHandlerFactory {
         this.setType(screen_type);
     }
 
+    /**
+     * Get the name of this screen
+     *
+     * @since    0.5.0
+     */
+    public String getName() {
+        return this.name;
+    }
+
     /**
      * Should the player inventory be shown?
      *
@@ -248,6 +261,7 @@ public class ScreenBuilder implements NamedScreenHandlerFactory {
 
         // Get the GuiTexture instance to use
         this.font_texture = GuiTexture.get(texture_path, x, y).setScreenBuilder(this);
+        this.invalidateCompiledTitle();
 
         // And return it
         return this.font_texture;
@@ -275,6 +289,7 @@ public class ScreenBuilder implements NamedScreenHandlerFactory {
      */
     public GuiTexture setFontTexture(GuiTexture gui_texture) {
         this.font_texture = gui_texture;
+        this.invalidateCompiledTitle();
         return this.font_texture;
     }
 
@@ -299,6 +314,7 @@ public class ScreenBuilder implements NamedScreenHandlerFactory {
      */
     public void useItemTexture(String texture_path, int slot_x, int slot_y) {
         this.font_texture = null;
+        this.invalidateCompiledTitle();
         this.texture_path = texture_path;
         this.texture_slot_x = slot_x;
         this.texture_slot_y = slot_y;
@@ -357,6 +373,7 @@ public class ScreenBuilder implements NamedScreenHandlerFactory {
         if (!enable) {
             this.font_texture = null;
             this.texture_path = null;
+            this.invalidateCompiledTitle();
             return;
         }
 
@@ -396,6 +413,7 @@ public class ScreenBuilder implements NamedScreenHandlerFactory {
     public void addWidget(String id, Widget widget) {
         this.widgets.put(id, widget);
         widget.setScreenBuilder(this);
+        this.invalidateCompiledTitle();
     }
 
     /**
@@ -640,11 +658,18 @@ public class ScreenBuilder implements NamedScreenHandlerFactory {
 
         this.used_slots.put(index, true);
 
+        Slot previous_slot;
+
         if (index >= this.getScreenTypeSlotCount()) {
             int player_slot_index = index - this.getScreenTypeSlotCount();
-            this.player_slots.set(player_slot_index, slot);
+            previous_slot = this.player_slots.set(player_slot_index, slot);
         } else {
-            this.main_slots.set(index, slot);
+            previous_slot = this.main_slots.set(index, slot);
+        }
+
+        // Widgets re-set the same slots each time they're prepared
+        if (previous_slot != slot) {
+            this.invalidateCompiledTitle();
         }
 
         if (slot instanceof SlotBuilder build_slot) {
@@ -1109,6 +1134,37 @@ public class ScreenBuilder implements NamedScreenHandlerFactory {
      */
     public void addToTextBuilder(TextBuilder text_builder) {
 
+        List<Widget> dynamic_widgets;
+        CompiledTitle compiled = this.getCompiledTitle();
+
+        if (compiled != null) {
+            // The static part has already been built
+            text_builder.applyTemplate(compiled.template);
+            dynamic_widgets = compiled.dynamic_widgets;
+        } else {
+            dynamic_widgets = this.addStaticPartsToTextBuilder(text_builder);
+        }
+
+        // Iterate over the widgets that depend on a value
+        for (Widget widget : dynamic_widgets) {
+            text_builder.setActiveSource(widget);
+            widget.addToTextBuilder(text_builder);
+        }
+
+        text_builder.setActiveSource(null);
+
+        this.printErrors(text_builder);
+    }
+
+    /**
+     * Add the parts of the title that do not depend on any value:
+     * the font texture, the slots and the leading static widgets.
+     * Returns the widgets that still have to be added.
+     *
+     * @since    0.5.0
+     */
+    protected List<Widget> addStaticPartsToTextBuilder(TextBuilder text_builder) {
+
         // Create the root space group
         text_builder.ensureSpaceGroup();
 
@@ -1126,15 +1182,56 @@ public class ScreenBuilder implements NamedScreenHandlerFactory {
             }
         }
 
-        // Iterate over all the key-value font_widgets
-        for (Map.Entry<String, Widget> entry : this.widgets.entrySet()) {
-            String id = entry.getKey();
-            Widget widget = entry.getValue();
+        List<Widget> remaining = new ArrayList<>(this.widgets.values());
 
+        // Static widgets can be added too, as long as the order stays the same
+        while (!remaining.isEmpty() && remaining.get(0).hasStaticOutput()) {
+            Widget widget = remaining.remove(0);
+            text_builder.setActiveSource(widget);
             widget.addToTextBuilder(text_builder);
         }
 
-        this.printErrors(text_builder);
+        text_builder.setActiveSource(null);
+
+        return remaining;
+    }
+
+    /**
+     * Get the compiled static part of the title.
+     * This is only done once the screen has been registered,
+     * because the slots and widgets can still change before that.
+     *
+     * @since    0.5.0
+     */
+    @Nullable
+    protected CompiledTitle getCompiledTitle() {
+
+        if (!this.has_been_registered) {
+            return null;
+        }
+
+        CompiledTitle compiled = this.compiled_title;
+
+        if (compiled == null) {
+            TextBuilder text_builder = new TextBuilder(this);
+            List<Widget> dynamic_widgets = this.addStaticPartsToTextBuilder(text_builder);
+
+            compiled = new CompiledTitle(text_builder.compileTemplate(), List.copyOf(dynamic_widgets));
+            this.compiled_title = compiled;
+        }
+
+        return compiled;
+    }
+
+    /**
+     * Forget the compiled static part of the title,
+     * so it gets built again the next time it is needed.
+     * (Slots call this themselves when their title output changes)
+     *
+     * @since    0.5.0
+     */
+    public void invalidateCompiledTitle() {
+        this.compiled_title = null;
     }
 
     /**
@@ -1400,4 +1497,24 @@ public class ScreenBuilder implements NamedScreenHandlerFactory {
 
         return new ScreenInfo.Coordinates(new_x, new_y);
     }
-}
\ No newline at end of file
+
+    /**
+     * The compiled static part of a title,
+     * together with the widgets that still have to be added per player
+     *
+     * @since    0.5.0
+     */
+    protected static class CompiledTitle {
+
+        // The pre-built static parts
+        public final TitleTemplate template;
+
+        // The widgets that depend on a value
+        public final List<Widget> dynamic_widgets;
+
+        public CompiledTitle(TitleTemplate template, List<Widget> dynamic_widgets) {
+            this.template = template;
+            this.dynamic_widgets = dynamic_widgets;
+        }
+    }
+}
@@ -30,6 +30,8 @@ import rocks.blackblock.screenbuilder.slots.SlotBuilder;
 import rocks.blackblock.screenbuilder.slots.StaticSlot;
 import rocks.blackblock.screenbuilder.slots.WidgetSlot;
 import rocks.blackblock.screenbuilder.text.TextBuilder;
+import rocks.blackblock.screenbuilder.text.TitleCache;
+import rocks.blackblock.screenbuilder.text.TitleMetrics;
 import rocks.blackblock.screenbuilder.utils.GuiUtils;
 
 import java.util.ArrayList;
@@ -76,6 +78,13 @@ public class TexturedScreenHandler extends ScreenHandler {
     // The current title
     private Text current_title = null;
 
+    // The last title the client was sent for this sync id (and its hash)
+    private Text sent_title = null;
+    private int sent_title_hash = 0;
+
+    // Was the sent title inherited from a replaced handler?
+    private boolean sent_title_inherited = false;
+
     // The next event id
     private int next_event_id = 0;
 
@@ -1232,6 +1241,11 @@ public class TexturedScreenHandler extends ScreenHandler {
                     new_textured_handler.setPreviousFactory(previous_factory);
                 }
 
+                // The client still shows the title of the current handler
+                if (current_textured_handler.getType() == new_textured_handler.getType()) {
+                    new_textured_handler.inheritSentTitle(current_textured_handler);
+                }
+
                 new_textured_handler.forceSendTo(server_player);
                 server_player.currentScreenHandler = new_handler;
 
@@ -1378,16 +1392,74 @@ public class TexturedScreenHandler extends ScreenHandler {
      * @since   0.2.1
      */
     public void forceSendTo(ServerPlayerEntity player) {
-        TextBuilder builder = this.getTextBuilder();
-        Text title = builder.build();
+        Text title = this.buildTitle();
+
+        // If the client already shows this exact title,
+        // reopening the screen would only cause flicker & reset the mouse
+        if (this.isSentTitle(title)) {
+
+            if (this.sent_title_inherited) {
+                // A new handler has to sync everything
+                this.sent_title_inherited = false;
+                this.syncState();
+            } else {
+                // Only send the slots that actually changed
+                this.sendContentUpdates();
+            }
+
+            return;
+        }
 
         // Send the "OpenSCreen" packet to the client, with the existing sync id.
         player.networkHandler.sendPacket(new OpenScreenS2CPacket(this.syncId, this.getType(), title));
+        this.markTitleAsSent(title);
 
         // Always sync the state afterwards, that's needed to keep the contents of the cursor
         this.syncState();
     }
 
+    /**
+     * Remember the title that was sent to the client
+     *
+     * @since   0.5.0
+     */
+    public void markTitleAsSent(Text title) {
+        this.sent_title = title;
+        this.sent_title_hash = title == null ? 0 : title.hashCode();
+        this.sent_title_inherited = false;
+    }
+
+    /**
+     * Take over the sent title of the handler this one replaces
+     * (They use the same sync id, so the client still shows it)
+     *
+     * @since   0.5.0
+     */
+    public void inheritSentTitle(TexturedScreenHandler previous_handler) {
+        this.sent_title = previous_handler.sent_title;
+        this.sent_title_hash = previous_handler.sent_title_hash;
+        this.sent_title_inherited = this.sent_title != null;
+    }
+
+    /**
+     * Is the given title the same as the one the client already has?
+     * The hash is compared first, a structural comparison confirms it.
+     *
+     * @since   0.5.0
+     */
+    public boolean isSentTitle(Text title) {
+
+        if (this.sent_title == null || title == null) {
+            return false;
+        }
+
+        if (this.sent_title_hash != title.hashCode()) {
+            return false;
+        }
+
+        return this.sent_title.equals(title);
+    }
+
     /**
      * Get the factory that created this screen
      *
@@ -1482,6 +1554,18 @@ public class TexturedScreenHandler extends ScreenHandler {
      * @since     0.1.1
      */
     public TextBuilder getTextBuilder() {
+        return this.getTextBuilder(false);
+    }
+
+    /**
+     * Get a TextBuilder instance for this screen,
+     * optionally leaving out the images
+     *
+     * @param     skip_images   Leave out the (expensive) images
+     *
+     * @since     0.5.0
+     */
+    protected TextBuilder getTextBuilder(boolean skip_images) {
 
         if (this.origin_factory instanceof BasescreenFactory base_factory) {
             base_factory.offerOriginalSyncId(this.syncId);
@@ -1491,11 +1575,74 @@ public class TexturedScreenHandler extends ScreenHandler {
             base_factory.onStartViewingSession();
         }
 
+        return this.createTextBuilder(skip_images);
+    }
+
+    /**
+     * Build the title to send to the client.
+     * The title is measured, and when it goes over the budget
+     * it is built again without the images.
+     * That decision is remembered, so later builds of the same screen
+     * leave out the images right away.
+     *
+     * @since     0.5.0
+     */
+    public Text buildTitle() {
+
+        String name = this.builder == null ? null : this.builder.getName();
+        boolean skip_images = TitleMetrics.shouldSkipImages(name);
+
+        TextBuilder text_builder = this.getTextBuilder(skip_images);
+        Text title = text_builder.build();
+
+        // Serialize (and measure) the title without interning it yet,
+        // because it might still be thrown away
+        String json = TitleMetrics.needsJson() ? TitleCache.SHARED.peekJson(title) : null;
+
+        if (TitleMetrics.record(name, title, json) || skip_images) {
+            // Identical titles are shared between all players
+            return TitleCache.SHARED.intern(title, json);
+        }
+
+        List<Object> sources = text_builder.getImageSources();
+
+        if (sources.isEmpty()) {
+            if (TitleMetrics.markWarned(name)) {
+                BBSB.log("Title of screen", name, "is over the budget of", TitleMetrics.BUDGET_BYTES, "bytes, but there is nothing to leave out");
+            }
+
+            return TitleCache.SHARED.intern(title, json);
+        }
+
+        TitleMetrics.markSkipImages(name);
+
+        if (TitleMetrics.markWarned(name)) {
+            BBSB.log("Title of screen", name, "is over the budget of", TitleMetrics.BUDGET_BYTES, "bytes, leaving out the images of", sources, "from now on");
+        }
+
+        text_builder = this.createTextBuilder(true);
+        title = text_builder.build();
+        json = TitleMetrics.needsJson() ? TitleCache.SHARED.peekJson(title) : null;
+        TitleMetrics.record(name, title, json);
+
+        return TitleCache.SHARED.intern(title, json);
+    }
+
+    /**
+     * Create & populate a TextBuilder instance for this screen
+     *
+     * @param     skip_images   Leave out the (expensive) images
+     *
+     * @since     0.5.0
+     */
+    protected TextBuilder createTextBuilder(boolean skip_images) {
+
         // See if we already know the title
         Text title = this.current_title;
 
         // Create the text builder
         TextBuilder text_builder = new TextBuilder(this);
+        text_builder.setSkipImages(skip_images);
 
         // If we don't, get it from the factory
         if (title == null) {
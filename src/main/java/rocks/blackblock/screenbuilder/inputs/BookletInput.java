@@ -111,6 +111,35 @@ public class BookletInput extends EmptyInput {
         this.text.printText(text);
     }
 
+    /**
+     * Set the amount of lines to show per page
+     * (0 shows all the lines)
+     *
+     * @since    0.5.0
+     */
+    public void setLinesPerPage(int lines_per_page) {
+        this.text.setLinesPerPage(lines_per_page);
+    }
+
+    /**
+     * Set the zero-based page to show.
+     * The line breaks are cached, so flipping pages doesn't measure the text again.
+     *
+     * @since    0.5.0
+     */
+    public void setPage(int page) {
+        this.text.setPage(page);
+    }
+
+    /**
+     * Get the amount of pages
+     *
+     * @since    0.5.0
+     */
+    public int getPageCount() {
+        return this.text.getPageCount();
+    }
+
     /**
      * Get a new screenbuilder to actually send to the player
      *
@@ -1,7 +1,6 @@
 package rocks.blackblock.screenbuilder.inputs;
 
 import net.minecraft.screen.NamedScreenHandlerFactory;
-import net.minecraft.text.TextColor;
 import rocks.blackblock.screenbuilder.BBSB;
 import rocks.blackblock.screenbuilder.ScreenBuilder;
 import rocks.blackblock.screenbuilder.TexturedScreenHandler;
@@ -289,17 +288,17 @@ public class FileInput extends EmptyInput implements WidgetDataProvider {
                 this.slot_map.put(i, entry);
 
                 if (entry.is_directory) {
-                    button.addOverlay(BBSB.FOLDER_ICON.getColoured(TextColor.fromRgb(0xdca100)));
+                    button.addOverlay(BBSB.FOLDER_ICON.getColoured(0xdca100));
 
                     if (entry.is_parent) {
                         button.addOverlay(BBSB.ARROW_UP_ICON);
                     }
                 } else {
-                    button.addOverlay(BBSB.FILE_ICON.getColoured(TextColor.fromRgb(0x00ffff)));
+                    button.addOverlay(BBSB.FILE_ICON.getColoured(0x00ffff));
                 }
 
                 if (entry.path.equals(this.selected)) {
-                    button.addOverlay(BBSB.DOTTED_LINE_ICON.getColoured(TextColor.fromRgb(0x00c710)));
+                    button.addOverlay(BBSB.DOTTED_LINE_ICON.getColoured(0x00c710));
                 }
 
                 button.addLeftClickListener(slot_listener);
@@ -348,7 +347,7 @@ public class FileInput extends EmptyInput implements WidgetDataProvider {
         ButtonWidgetSlot directory_button = sb.addButton(slot_index);
         directory_button.setTitle("Create directory");
         directory_button.setBackgroundType(ButtonWidgetSlot.BackgroundType.SMALL);
-        directory_button.addOverlay(BBSB.FOLDER_ICON.getColoured(TextColor.fromRgb(0xdca100)));
+        directory_button.addOverlay(BBSB.FOLDER_ICON.getColoured(0xdca100));
 
         directory_button.addLeftClickListener((screen, slot) -> {
 
@@ -385,7 +384,7 @@ public class FileInput extends EmptyInput implements WidgetDataProvider {
         accept_button.setBackgroundType(ButtonWidgetSlot.BackgroundType.SMALL);
 
         if (this.selected != null) {
-            accept_button.addOverlay(BBSB.CHECK_ICON.getColoured(TextColor.fromRgb(0x00c710)));
+            accept_button.addOverlay(BBSB.CHECK_ICON.getColoured(0x00c710));
             accept_button.setLore(this.selected.getFileName().toString());
 
             accept_button.addLeftClickListener((screen, slot) -> {
@@ -394,7 +393,7 @@ public class FileInput extends EmptyInput implements WidgetDataProvider {
                 }
             });
         } else {
-            accept_button.addOverlay(BBSB.CHECK_ICON.getColoured(TextColor.fromRgb(0x818181)));
+            accept_button.addOverlay(BBSB.CHECK_ICON.getColoured(0x818181));
         }
     }
 
@@ -3,7 +3,6 @@ package rocks.blackblock.screenbuilder.inputs;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.screen.NamedScreenHandlerFactory;
-import net.minecraft.text.TextColor;
 import org.jetbrains.annotations.NotNull;
 import rocks.blackblock.screenbuilder.BBSB;
 import rocks.blackblock.screenbuilder.ScreenBuilder;
@@ -272,7 +271,7 @@ public class SelectValueInput<T> extends EmptyInput implements PageableInput<T>
         if (this.require_confirm_button) {
             ButtonWidgetSlot confirm_button = sb.addButton(current_index);
             confirm_button.setBackgroundType(ButtonWidgetSlot.BackgroundType.SMALL);
-            confirm_button.addOverlay(BBSB.CHECK_ICON.getColoured(TextColor.fromRgb(0x15b700)));
+            confirm_button.addOverlay(BBSB.CHECK_ICON.getColoured(0x15b700));
 
             confirm_button.setTitle("Confirm");
 
@@ -0,0 +1,19 @@
+package rocks.blackblock.screenbuilder.interfaces;
+
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+import rocks.blackblock.chunker.chunk.Lump;
+
+/**
+ * Provides the lumps of the chunks around the one being shown,
+ * so a MapWidget can prepare them before they are needed.
+ * This is called on a worker thread.
+ *
+ * @since   0.5.0
+ */
+@FunctionalInterface
+public interface MapLumpProvider {
+    @Nullable
+    Lump getLump(@Nullable World world, ChunkPos pos);
+}
@@ -14,7 +14,6 @@ import rocks.blackblock.chunker.Chunker;
 import rocks.blackblock.chunker.chunk.Lump;
 import rocks.blackblock.chunker.world.Plane;
 import rocks.blackblock.screenbuilder.TexturedScreenHandler;
-import rocks.blackblock.screenbuilder.text.TextBuilder;
 
 @Mixin(ServerPlayerEntity.class)
 public abstract class ServerPlayerEntityMixin {
@@ -49,9 +48,11 @@ public abstract class ServerPlayerEntityMixin {
             TexturedScreenHandler texturedScreenHandler = this.bbsbScreenHandler;
             this.bbsbScreenHandler = null;
 
-            TextBuilder textBuilder = texturedScreenHandler.getTextBuilder();
+            Text built_title = texturedScreenHandler.buildTitle();
 
-            return textBuilder.build();
+            texturedScreenHandler.markTitleAsSent(built_title);
+
+            return built_title;
         }
 
         return title;
@@ -0,0 +1,15 @@
+package rocks.blackblock.screenbuilder.mixin;
+
+import net.minecraft.text.Style;
+import net.minecraft.util.Identifier;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+@Mixin(Style.class)
+public interface StyleAccessor {
+
+    // The font that was actually set on the style
+    // (Style#getFont() returns the default font when it is null)
+    @Accessor("font")
+    Identifier getRawFont();
+}
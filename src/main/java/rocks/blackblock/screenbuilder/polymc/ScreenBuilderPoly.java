@@ -13,9 +13,11 @@ import rocks.blackblock.screenbuilder.text.LineHeightFontCollection;
 import rocks.blackblock.screenbuilder.text.PixelFontCollection;
 import rocks.blackblock.screenbuilder.textures.BaseTexture;
 import rocks.blackblock.screenbuilder.utils.GuiUtils;
+import rocks.blackblock.screenbuilder.utils.PngEncoder;
 
 import javax.imageio.ImageIO;
 import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * PolyMC entrypoint for registering resource pack assets
@@ -37,25 +39,35 @@ public class ScreenBuilderPoly implements PolyMcEntrypoint {
      * @param   pack
      *
      * @since   0.1.1
+     * @version 0.5.0
      */
     public void registerModSpecificResources(ModdedResources moddedResources, PolyMcResourcePack pack, SimpleLogger logger) {
 
+        long start = System.nanoTime();
+
+        // The images are created & encoded in the background,
+        // so start with the ones that take the longest
+        CompletableFuture<byte[]> ascii_0 = PngEncoder.SHARED.encode(() -> LineHeightFont.getFontImage(0));
+        CompletableFuture<byte[]> ascii_1 = PngEncoder.SHARED.encode(() -> LineHeightFont.getFontImage(1));
+
         // Make all the ScreenBuilders register their items
         // (When using the old-style item texture override)
         for (ScreenBuilder sb : ScreenBuilder.screen_builders) {
             sb.registerPoly(moddedResources, pack, logger);
         }
 
+        start = logStage("Screen items", start);
+
         // The `bbsb:space` font is always required, it allows us to horizontally move text
         copyFile(moddedResources, pack, BBSB.NAMESPACE, "font/space.json");
 
         // There are new font textures which is used for printing lines of text above the start position
         pack.setAsset(BBSB.NAMESPACE, "textures/font/asciix10_0.png", (location, gson) -> {
-            GuiUtils.writeToPath(location, LineHeightFont.getFontImage(0));
+            GuiUtils.writeToPath(location, ascii_0.join());
         });
 
         pack.setAsset(BBSB.NAMESPACE, "textures/font/asciix10_1.png", (location, gson) -> {
-            GuiUtils.writeToPath(location, LineHeightFont.getFontImage(1));
+            GuiUtils.writeToPath(location, ascii_1.join());
         });
 
         overrideInventoryTranslation(moddedResources, pack);
@@ -64,11 +76,32 @@ public class ScreenBuilderPoly implements PolyMcEntrypoint {
         copyFile(moddedResources, pack, BBSB.NAMESPACE, "textures/font/space_nosplit.png");
         copyFile(moddedResources, pack, BBSB.NAMESPACE, "textures/font/space_split.png");
 
+        start = logStage("Static files", start);
+
         FontCollection.ALL_COLLECTIONS.forEach(fontCollection -> {
             fontCollection.addToResourcePack(moddedResources, pack, logger);
         });
 
+        start = logStage("Font collections", start);
+
         BaseTexture.addToResourcePack(moddedResources, pack, logger);
+
+        logStage("GUI textures", start);
+
+        PngEncoder.SHARED.finish("Resource pack images");
+    }
+
+    /**
+     * Log how long a stage of the resource pack generation took
+     *
+     * @return   The current time, to use as the start of the next stage
+     *
+     * @since   0.5.0
+     */
+    private static long logStage(String stage, long start) {
+        long now = System.nanoTime();
+        BBSB.log("Resource pack stage", stage, "took", (now - start) / 1_000_000, "ms");
+        return now;
     }
 
     /**
@@ -115,6 +115,21 @@ public abstract class BaseSlot extends Slot {
         return this.active_builder;
     }
 
+    /**
+     * Let the ScreenBuilder know the title output of this slot changed,
+     * so its compiled title is built again
+     *
+     * @since    0.5.0
+     */
+    protected void invalidateCompiledTitle() {
+
+        ScreenBuilder builder = this.getScreenBuilder();
+
+        if (builder != null) {
+            builder.invalidateCompiledTitle();
+        }
+    }
+
     /**
      * Set the active handler
      *
@@ -469,6 +484,7 @@ public abstract class BaseSlot extends Slot {
      *
      * @author   Jelle De Loecker   <jelle@elevenways.be>
      * @since    0.2.1
+     * @version  0.5.0
      *
      * @param    texture   The texture to overlay
      */
@@ -481,6 +497,7 @@ public abstract class BaseSlot extends Slot {
         Overlay new_overlay = new Overlay(this, texture, null, null);
 
         this.overlays.add(new_overlay);
+        this.invalidateCompiledTitle();
 
         return new_overlay;
     }
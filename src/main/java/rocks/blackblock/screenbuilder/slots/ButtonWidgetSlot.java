@@ -328,10 +328,12 @@ public class ButtonWidgetSlot extends ListenerWidgetSlot {
      *
      * @author   Jelle De Loecker   <jelle@elevenways.be>
      * @since    0.3.0
+     * @version  0.5.0
      */
     public ButtonWidgetSlot setBackgroundType(BackgroundType type, boolean show_background_image) {
         this.background_type = type;
         this.show_background_image = show_background_image;
+        this.invalidateCompiledTitle();
         return this;
     }
 
@@ -340,9 +342,11 @@ public class ButtonWidgetSlot extends ListenerWidgetSlot {
      *
      * @author   Jelle De Loecker   <jelle@elevenways.be>
      * @since    0.2.1
+     * @version  0.5.0
      */
     public ButtonWidgetSlot setBackgroundColour(TextColor colour) {
         this.background_colour = colour;
+        this.invalidateCompiledTitle();
         return this;
     }
 
@@ -361,9 +365,11 @@ public class ButtonWidgetSlot extends ListenerWidgetSlot {
      *
      * @author   Jelle De Loecker   <jelle@elevenways.be>
      * @since    0.1.3
+     * @version  0.5.0
      */
     public ButtonWidgetSlot setButtonText(String text) {
         this.button_text = text;
+        this.invalidateCompiledTitle();
         return this;
     }
 
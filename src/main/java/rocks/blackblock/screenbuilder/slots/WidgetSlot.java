@@ -135,10 +135,12 @@ public abstract class WidgetSlot extends StaticSlot {
      *
      * @author  Jelle De Loecker   <jelle@elevenways.be>
      * @since   0.1.3
+     * @version 0.5.0
      */
     public void setBackground(WidgetTexture texture, int x, int y) {
         texture.registerYOffset(y + this.getSlotYInPixels());
         this.background_texture = new TexturePlacement(texture, x, y);
+        this.invalidateCompiledTitle();
     }
 
     /**
@@ -156,6 +158,7 @@ public abstract class WidgetSlot extends StaticSlot {
      *
      * @author  Jelle De Loecker   <jelle@elevenways.be>
      * @since   0.1.3
+     * @version 0.5.0
      */
     public void addTexture(WidgetTexture texture, int x, int y) {
 
@@ -166,6 +169,7 @@ public abstract class WidgetSlot extends StaticSlot {
         texture.registerYOffset(y + this.getSlotYInPixels());
 
         this.foreground_textures.add(new TexturePlacement(texture, x, y));
+        this.invalidateCompiledTitle();
     }
 
     /**
@@ -175,6 +179,7 @@ public abstract class WidgetSlot extends StaticSlot {
      */
     public void setLabel(String label) {
         this.label = label;
+        this.invalidateCompiledTitle();
     }
 
     /**
@@ -184,6 +189,7 @@ public abstract class WidgetSlot extends StaticSlot {
      */
     public void setPrintLabelRight(boolean value) {
         this.print_label_right = value;
+        this.invalidateCompiledTitle();
     }
 
     /**
@@ -193,6 +199,7 @@ public abstract class WidgetSlot extends StaticSlot {
      */
     public void setLabelColor(TextColor color) {
         this.label_color = color;
+        this.invalidateCompiledTitle();
     }
 
     /**
@@ -202,6 +209,7 @@ public abstract class WidgetSlot extends StaticSlot {
      */
     public void setMinimumLabelWidth(int width) {
         this.min_label_width = width;
+        this.invalidateCompiledTitle();
     }
 
     /**
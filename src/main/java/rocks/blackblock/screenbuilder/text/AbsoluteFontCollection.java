@@ -3,6 +3,9 @@ package rocks.blackblock.screenbuilder.text;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.stream.JsonReader;
+import io.github.theepicblock.polymc.api.resource.ModdedResources;
+import io.github.theepicblock.polymc.api.resource.PolyMcResourcePack;
+import io.github.theepicblock.polymc.impl.misc.logging.SimpleLogger;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.InputStream;
@@ -16,19 +19,24 @@ import java.io.InputStreamReader;
  */
 public class AbsoluteFontCollection extends LineHeightFontCollection {
 
+    // The range of line indexes that get a font
+    public static final int MIN_LINE_INDEX = -110;
+    public static final int MAX_LINE_INDEX = 200;
+
     public static JsonObject BASE_NEGATIVE = null;
     public static JsonObject BASE_POSITIVE = null;
 
     /**
-     * Create the collection
+     * Create the collection.
+     * The fonts themselves are only created when they're first needed.
      *
      * @since 0.3.1
+     * @version 0.5.0
      */
     public AbsoluteFontCollection() {
         super(8, Font.DEFAULT);
 
         this.loadBaseFiles();
-        this.generateFonts();
     }
 
     /**
@@ -60,30 +68,51 @@ public class AbsoluteFontCollection extends LineHeightFontCollection {
     }
 
     /**
-     * Generate the actual fonts
+     * Generate all the fonts that have not been created yet
+     *
      * @since   0.3.1
+     * @version 0.5.0
      */
     @Override
     protected void generateFonts() {
+        for (int i = MIN_LINE_INDEX; i < MAX_LINE_INDEX; i++) {
+            this.getLineHeightFontForLine(i);
+        }
+    }
 
-        LineHeightFont font;
-
-        int min = -110;
-        int max = 200;
+    /**
+     * Create the font for the given line index
+     *
+     * @param   line_index   The line index to create the font for
+     *
+     * @since   0.5.0
+     */
+    @Override
+    protected LineHeightFont createFontForLine(int line_index) {
 
-        for (int i = min; i < max; i++) {
+        if (line_index < MIN_LINE_INDEX || line_index >= MAX_LINE_INDEX) {
+            return null;
+        }
 
-            int ascent = i * - 1;
+        LineHeightFont font = new LineHeightFont(this, line_index);
+        Font.register(font);
 
-            font = new LineHeightFont(this, i);
+        return font;
+    }
 
-            this.line_height_fonts.put(i, font);
-            Font.register(font);
+    /**
+     * Get the first font of this collection
+     *
+     * @since   0.5.0
+     */
+    @Override
+    protected LineHeightFont getFirstFont() {
 
-            if (this.first_font == null) {
-                this.first_font = font;
-            }
+        if (this.first_font == null) {
+            this.first_font = this.getLineHeightFontForLine(MIN_LINE_INDEX);
         }
+
+        return this.first_font;
     }
 
     /**
@@ -92,11 +121,12 @@ public class AbsoluteFontCollection extends LineHeightFontCollection {
      * @param   line_index   The line index to get the font for
      *
      * @since   0.3.1
+     * @version 0.5.0
      */
     @Override
     @NotNull
     public Font getFontForLine(int line_index) {
-        Font result = this.line_height_fonts.get(line_index);
+        Font result = this.getLineHeightFontForLine(line_index);
 
         if (result == null) {
             result = Font.DEFAULT;
@@ -155,6 +185,18 @@ public class AbsoluteFontCollection extends LineHeightFontCollection {
         return y - 6;
     }
 
+    /**
+     * Add all fonts to the given resource pack,
+     * creating the ones that have not been used yet
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public void addToResourcePack(ModdedResources moddedResources, PolyMcResourcePack pack, SimpleLogger logger) {
+        this.generateFonts();
+        super.addToResourcePack(moddedResources, pack, logger);
+    }
+
     /**
      * Get the font folder id
      *
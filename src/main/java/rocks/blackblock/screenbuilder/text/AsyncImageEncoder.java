@@ -0,0 +1,339 @@
+package rocks.blackblock.screenbuilder.text;
+
+import org.jetbrains.annotations.Nullable;
+import rocks.blackblock.bib.util.BibLog;
+import rocks.blackblock.screenbuilder.BBSB;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Loads & encodes images on a small pool of worker threads,
+ * so the server thread only has to replay the finished glyph strings.
+ *
+ * Results are kept by a caller-provided key. Until the first result of a key
+ * is ready, lookups return null (and the caller should show a placeholder).
+ * Stale results keep being returned while a newer one is being encoded.
+ *
+ * @author  Jelle De Loecker   <jelle@elevenways.be>
+ * @since   0.5.0
+ */
+public class AsyncImageEncoder implements BibLog.Argable {
+
+    // The shared encoder
+    public static final AsyncImageEncoder SHARED = new AsyncImageEncoder(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)),
+            256,
+            512
+    );
+
+    // The amount of worker threads
+    private final int thread_count;
+
+    // The maximum amount of queued jobs
+    private final int queue_size;
+
+    // The maximum amount of results to keep
+    private final int max_entries;
+
+    // The worker pool (created when first needed)
+    private ThreadPoolExecutor executor = null;
+
+    // The results, least recently used first
+    private final LinkedHashMap<Object, Entry> entries;
+
+    // Statistics
+    private long completed = 0;
+    private long failed = 0;
+    private long rejected = 0;
+
+    /**
+     * Create a new encoder
+     *
+     * @param   thread_count   The amount of worker threads
+     * @param   queue_size     The maximum amount of queued jobs
+     * @param   max_entries    The maximum amount of results to keep
+     *
+     * @since   0.5.0
+     */
+    public AsyncImageEncoder(int thread_count, int queue_size, int max_entries) {
+        this.thread_count = thread_count;
+        this.queue_size = queue_size;
+        this.max_entries = max_entries;
+
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                return this.size() > AsyncImageEncoder.this.max_entries && !eldest.getValue().in_flight;
+            }
+        };
+    }
+
+    /**
+     * Get the encoded image of the given key.
+     * If there is no (fresh) result yet, the image is encoded in the background.
+     *
+     * @param   key                A key that identifies the image & its position
+     * @param   source             Provides the image (called on a worker thread)
+     * @param   y_offset           The vertical position of the image, relative to the builder's origin
+     * @param   skip_transparent   Replace runs of fully transparent pixels with a movement
+     * @param   max_age            How long a result stays fresh in milliseconds (0 or less for forever)
+     * @param   on_ready           Called (on a worker thread) when the result that is being made is ready
+     *
+     * @return  The latest result, or null if there is none yet
+     *
+     * @since   0.5.0
+     */
+    @Nullable
+    public EncodedImage get(Object key, Supplier<BufferedImage> source, int y_offset, boolean skip_transparent, long max_age, @Nullable Runnable on_ready) {
+
+        Entry entry;
+        boolean submit = false;
+
+        synchronized (this) {
+            entry = this.entries.get(key);
+
+            if (entry == null) {
+                entry = new Entry();
+                this.entries.put(key, entry);
+            }
+
+            if (!entry.in_flight && entry.isStale(max_age)) {
+                entry.in_flight = true;
+                submit = true;
+            }
+
+            // Equal callbacks are only called once
+            if (on_ready != null && entry.in_flight && !entry.waiters.contains(on_ready)) {
+                entry.waiters.add(on_ready);
+            }
+        }
+
+        if (submit) {
+            this.submit(key, entry, source, y_offset, skip_transparent);
+        }
+
+        return entry.image;
+    }
+
+    /**
+     * Make sure the given image is encoded (or being encoded),
+     * without waiting for it
+     *
+     * @since   0.5.0
+     */
+    public void prefetch(Object key, Supplier<BufferedImage> source, int y_offset, boolean skip_transparent, long max_age) {
+        this.get(key, source, y_offset, skip_transparent, max_age, null);
+    }
+
+    /**
+     * Run the given task on one of the worker threads
+     * (It is dropped when the queue is full)
+     *
+     * @return  False if the task was dropped
+     *
+     * @since   0.5.0
+     */
+    public boolean execute(Runnable task) {
+
+        try {
+            this.getExecutor().execute(task);
+            return true;
+        } catch (Exception e) {
+            synchronized (this) {
+                this.rejected++;
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Is there a (possibly stale) result for the given key?
+     *
+     * @since   0.5.0
+     */
+    public synchronized boolean has(Object key) {
+        Entry entry = this.entries.get(key);
+        return entry != null && entry.image != null;
+    }
+
+    /**
+     * Queue the encoding of the given entry
+     *
+     * @since   0.5.0
+     */
+    private void submit(Object key, Entry entry, Supplier<BufferedImage> source, int y_offset, boolean skip_transparent) {
+
+        try {
+            this.getExecutor().execute(() -> {
+                EncodedImage result = null;
+
+                try {
+                    BufferedImage image = source.get();
+
+                    if (image != null) {
+                        int[] pixels = EncodedImage.getPixels(image);
+                        result = PixelImageCache.SHARED.get(pixels, image.getWidth(), image.getHeight(), y_offset, skip_transparent);
+                    }
+                } catch (Throwable e) {
+                    BBSB.log("Failed to encode image", key, e);
+                }
+
+                this.finish(entry, result);
+            });
+        } catch (Exception e) {
+            // The queue is full: forget about it, it'll be requested again
+            synchronized (this) {
+                this.rejected++;
+                entry.in_flight = false;
+            }
+        }
+    }
+
+    /**
+     * Store the result & notify the waiters
+     *
+     * @since   0.5.0
+     */
+    private void finish(Entry entry, @Nullable EncodedImage result) {
+
+        List<Runnable> waiters;
+
+        synchronized (this) {
+            entry.in_flight = false;
+
+            if (result == null) {
+                this.failed++;
+            } else {
+                this.completed++;
+                entry.image = result;
+                entry.encoded_at = System.currentTimeMillis();
+            }
+
+            waiters = new ArrayList<>(entry.waiters);
+            entry.waiters.clear();
+        }
+
+        if (result == null) {
+            return;
+        }
+
+        for (Runnable waiter : waiters) {
+            try {
+                waiter.run();
+            } catch (Throwable e) {
+                BBSB.log("Failed to notify image waiter", e);
+            }
+        }
+    }
+
+    /**
+     * Get the worker pool
+     *
+     * @since   0.5.0
+     */
+    private synchronized ThreadPoolExecutor getExecutor() {
+
+        if (this.executor == null) {
+            AtomicInteger counter = new AtomicInteger();
+
+            this.executor = new ThreadPoolExecutor(
+                    this.thread_count,
+                    this.thread_count,
+                    30,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(this.queue_size),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "bbsb-image-encoder-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.NORM_PRIORITY - 1);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy()
+            );
+
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+
+        return this.executor;
+    }
+
+    /**
+     * Remove all the results
+     *
+     * @since   0.5.0
+     */
+    public synchronized void clear() {
+        this.entries.values().removeIf(entry -> !entry.in_flight);
+    }
+
+    /**
+     * Create a BibLog.Arg representation
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public synchronized BibLog.Arg toBBLogArg() {
+        var result = BibLog.createArg(this);
+        result.add("threads", this.thread_count);
+        result.add("entries", this.entries.size());
+        result.add("queued", this.executor == null ? 0 : this.executor.getQueue().size());
+        result.add("completed", this.completed);
+        result.add("failed", this.failed);
+        result.add("rejected", this.rejected);
+        return result;
+    }
+
+    /**
+     * Return a string representation of this encoder
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public String toString() {
+        return this.toBBLogArg().toString();
+    }
+
+    /**
+     * The latest result of a key
+     *
+     * @since   0.5.0
+     */
+    private static class Entry {
+
+        // The latest finished result
+        private volatile EncodedImage image = null;
+
+        // When that result was finished
+        private long encoded_at = 0;
+
+        // Is a job queued or running?
+        private boolean in_flight = false;
+
+        // Callbacks waiting for the next result
+        private final List<Runnable> waiters = new ArrayList<>(1);
+
+        /**
+         * Should a new result be made?
+         *
+         * @since   0.5.0
+         */
+        private boolean isStale(long max_age) {
+
+            if (this.image == null) {
+                return true;
+            }
+
+            return max_age > 0 && System.currentTimeMillis() - this.encoded_at > max_age;
+        }
+    }
+}
@@ -22,49 +22,72 @@ public class CombinedLineHeightFontCollection extends LineHeightFontCollection {
     // The top margin
     protected final int top_margin;
 
+    // The range of line indexes that get a font
+    private static final int MIN_LINE_INDEX = -20;
+    private static final int MAX_LINE_INDEX = 20;
+
     /**
-     * Create the collection
+     * Create the collection.
+     * The fonts are looked up in the absolute collection when first needed.
      *
      * @param   absolute_collection   The absolute font collection to use
      * @param   line_gap              The gap between the lines
      *
      * @since   0.3.1
+     * @version 0.5.0
      */
     public CombinedLineHeightFontCollection(AbsoluteFontCollection absolute_collection, int line_gap, int top_margin) {
         super(absolute_collection.getCharacterHeight());
         this.absolute_collection = absolute_collection;
         this.line_gap = line_gap;
         this.top_margin = top_margin;
-
-        this.generateFonts();
     }
 
     /**
-     * Generate the actual fonts
+     * Generate all the fonts that have not been looked up yet
      *
      * @since 0.3.1
+     * @version 0.5.0
      */
     @Override
     protected void generateFonts() {
+        for (int i = MIN_LINE_INDEX; i < MAX_LINE_INDEX; i++) {
+            this.getLineHeightFontForLine(i);
+        }
+    }
 
-        int min = -20;
-        int max = 20;
-
-        for (int i = min; i < max; i++) {
-            int y = this.convertLineToY(i);
+    /**
+     * Get the absolute font for the given line index
+     *
+     * @param   line_index   The line index to get the font for
+     *
+     * @since   0.5.0
+     */
+    @Override
+    protected LineHeightFont createFontForLine(int line_index) {
 
-            LineHeightFont line_font = this.absolute_collection.getLineHeightFontForLine(y);
+        if (line_index < MIN_LINE_INDEX || line_index >= MAX_LINE_INDEX) {
+            return null;
+        }
 
-            if (line_font == null) {
-                continue;
-            }
+        return this.absolute_collection.getLineHeightFontForLine(this.convertLineToY(line_index));
+    }
 
-            this.line_height_fonts.put(i, line_font);
+    /**
+     * Get the first font of this collection
+     *
+     * @since   0.5.0
+     */
+    @Override
+    protected LineHeightFont getFirstFont() {
 
-            if (this.first_font == null) {
-                this.first_font = line_font;
+        if (this.first_font == null) {
+            for (int i = MIN_LINE_INDEX; i < MAX_LINE_INDEX && this.first_font == null; i++) {
+                this.first_font = this.getLineHeightFontForLine(i);
             }
         }
+
+        return this.first_font;
     }
 
     /**
@@ -0,0 +1,334 @@
+package rocks.blackblock.screenbuilder.text;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+
+/**
+ * An image that has already been converted into PixelFont glyphs.
+ * It holds the finished glyph strings of each pass, and the movement
+ * needed after each of them, so printing it again only replays them.
+ * Fully transparent pixels can be left out and replaced by a movement.
+ *
+ * Instances are immutable and can be shared between builders.
+ *
+ * @author  Jelle De Loecker   <jelle@elevenways.be>
+ * @since   0.5.0
+ */
+public class EncodedImage {
+
+    // The glyph strings to insert (null when only a movement is needed)
+    private final String[] lines;
+
+    // The font to insert each string in
+    private final Font[] fonts;
+
+    // The horizontal movement after each string
+    private final int[] moves;
+
+    // The estimated memory use of the encoded data
+    private final long bytes;
+
+    private EncodedImage(String[] lines, Font[] fonts, int[] moves) {
+        this.lines = lines;
+        this.fonts = fonts;
+        this.moves = moves;
+
+        long bytes = 16L + lines.length * 12L;
+
+        for (String line : lines) {
+            if (line != null) {
+                bytes += 40 + line.length() * 2L;
+            }
+        }
+
+        this.bytes = bytes;
+    }
+
+    /**
+     * Encode the given pixels
+     *
+     * @param   pixels             The ARGB pixels, row by row
+     * @param   width              The width of the image
+     * @param   height             The height of the image
+     * @param   y_offset           The vertical position of the image, relative to the builder's origin
+     * @param   skip_transparent   Replace runs of fully transparent pixels with a movement
+     *
+     * @since   0.5.0
+     */
+    public static EncodedImage encode(int[] pixels, int width, int height, int y_offset, boolean skip_transparent) {
+        Encoder encoder = new Encoder(pixels, width, height, skip_transparent);
+        return encoder.encode(y_offset);
+    }
+
+    /**
+     * Get the ARGB pixels of the given image, row by row.
+     * The raster's own array is used when it already is in that format.
+     *
+     * @since   0.5.0
+     */
+    public static int[] getPixels(BufferedImage image) {
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        WritableRaster raster = image.getRaster();
+
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB
+                && raster.getParent() == null
+                && raster.getDataBuffer() instanceof DataBufferInt buffer
+                && buffer.getNumBanks() == 1
+                && buffer.getOffset() == 0
+                && buffer.getSize() == width * height
+        ) {
+            return buffer.getData();
+        }
+
+        return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+
+    /**
+     * Print this image to the given builder,
+     * starting at its current cursor position
+     *
+     * @since   0.5.0
+     */
+    public void printTo(TextBuilder builder) {
+        for (int i = 0; i < this.lines.length; i++) {
+
+            if (this.lines[i] != null) {
+                builder.insertUnsafe(this.lines[i], this.fonts[i]);
+            }
+
+            if (this.moves[i] != 0) {
+                builder.moveCursorUnsafe(this.moves[i]);
+            }
+        }
+    }
+
+    /**
+     * Get the amount of glyph strings & movements
+     *
+     * @since   0.5.0
+     */
+    public int getLineCount() {
+        return this.lines.length;
+    }
+
+    /**
+     * Get the total amount of glyphs
+     *
+     * @since   0.5.0
+     */
+    public int getGlyphCount() {
+
+        int result = 0;
+
+        for (String line : this.lines) {
+            if (line != null) {
+                result += line.length();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the estimated memory use
+     *
+     * @since   0.5.0
+     */
+    public long getBytes() {
+        return this.bytes;
+    }
+
+    /**
+     * Converts the pixels into glyph strings & movements
+     *
+     * @since   0.5.0
+     */
+    private static class Encoder {
+
+        // Transparent runs inside a line need at least this many pixel pairs to be skipped,
+        // because switching to the spacer font & back costs more than a few glyphs
+        private static final int MIN_TRANSPARENT_RUN = 16;
+
+        private final int[] pixels;
+        private final int width;
+        private final int height;
+        private final boolean skip_transparent;
+
+        // The resulting operations
+        private final ArrayList<String> lines = new ArrayList<>();
+        private final ArrayList<Font> fonts = new ArrayList<>();
+        private final ArrayList<Integer> moves = new ArrayList<>();
+
+        // The glyphs of the current segment
+        private final StringBuilder segment;
+
+        private Encoder(int[] pixels, int width, int height, boolean skip_transparent) {
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+            this.skip_transparent = skip_transparent;
+            this.segment = new StringBuilder((width + 1) / 2 + 1);
+        }
+
+        /**
+         * Encode all the rows
+         *
+         * @since   0.5.0
+         */
+        private EncodedImage encode(int y_offset) {
+
+            PixelFontCollection collection = PixelFontCollection.PX01;
+
+            for (int y = 0; y < this.height; y += 2) {
+
+                int top_offset = y * this.width;
+                int bottom_offset = top_offset + this.width;
+
+                // Images with an odd height get an extra black row
+                boolean has_bottom = y + 1 < this.height;
+
+                int line_index = (y_offset + y) / 2;
+                Font font = collection.getFontForLine(line_index);
+
+                // Because each pixel prints an invisible pixel on the right,
+                // we need to print the line in 2 passes
+                for (int pass = 0; pass < 2; pass++) {
+
+                    // The amount of pixels that have been moved over
+                    int advanced = 0;
+
+                    // The movement that still has to happen before the next glyph.
+                    // The second pass starts 1 pixel to the right
+                    int pending = pass;
+
+                    int x = pass;
+
+                    while (x < this.width) {
+
+                        if (this.skip_transparent && this.isTransparent(top_offset, bottom_offset, has_bottom, x)) {
+                            int run = 1;
+
+                            while (x + run * 2 < this.width && this.isTransparent(top_offset, bottom_offset, has_bottom, x + run * 2)) {
+                                run++;
+                            }
+
+                            boolean is_edge = this.segment.length() == 0 || x + run * 2 >= this.width;
+
+                            // Runs at the start or end of a line are always skipped,
+                            // the ones in the middle only when they're long enough
+                            if (is_edge || run >= MIN_TRANSPARENT_RUN) {
+                                this.flush(font);
+                                pending += run * 2;
+                                x += run * 2;
+                                continue;
+                            }
+                        }
+
+                        if (pending > 0) {
+                            if (pending == 1 && this.segment.length() == 0) {
+                                // This will move it 1 pixel to the right
+                                this.segment.append('9');
+                            } else {
+                                this.flush(font);
+                                this.addMove(pending);
+                            }
+
+                            advanced += pending;
+                            pending = 0;
+                        }
+
+                        int top_index = PixelFontCollection.getNearestColorIndex(this.pixels[top_offset + x]);
+                        int bottom_index = 0;
+
+                        if (has_bottom) {
+                            bottom_index = PixelFontCollection.getNearestColorIndex(this.pixels[bottom_offset + x]);
+                        }
+
+                        char pixel_char = collection.getCharacter(top_index, bottom_index);
+
+                        if (pixel_char == 0) {
+                            pixel_char = '8';
+                        }
+
+                        this.segment.append(pixel_char);
+                        advanced += 2;
+                        x += 2;
+                    }
+
+                    this.flush(font);
+
+                    // Move the cursor back to the beginning of the image
+                    // (Empty passes did not move at all)
+                    if (advanced > 0) {
+                        this.addMove(-advanced);
+                    }
+                }
+            }
+
+            int count = this.lines.size();
+            String[] lines = this.lines.toArray(new String[count]);
+            Font[] fonts = this.fonts.toArray(new Font[count]);
+            int[] moves = new int[count];
+
+            for (int i = 0; i < count; i++) {
+                moves[i] = this.moves.get(i);
+            }
+
+            return new EncodedImage(lines, fonts, moves);
+        }
+
+        /**
+         * Are both pixels of the given pair fully transparent?
+         *
+         * @since   0.5.0
+         */
+        private boolean isTransparent(int top_offset, int bottom_offset, boolean has_bottom, int x) {
+
+            if ((this.pixels[top_offset + x] >>> 24) != 0) {
+                return false;
+            }
+
+            return !has_bottom || (this.pixels[bottom_offset + x] >>> 24) == 0;
+        }
+
+        /**
+         * Add the current segment's glyphs (if any)
+         *
+         * @since   0.5.0
+         */
+        private void flush(Font font) {
+
+            if (this.segment.length() == 0) {
+                return;
+            }
+
+            this.lines.add(this.segment.toString());
+            this.fonts.add(font);
+            this.moves.add(0);
+            this.segment.setLength(0);
+        }
+
+        /**
+         * Add a movement, after the last glyphs if possible
+         *
+         * @since   0.5.0
+         */
+        private void addMove(int move) {
+
+            int last = this.moves.size() - 1;
+
+            if (last >= 0 && this.moves.get(last) == 0) {
+                this.moves.set(last, move);
+                return;
+            }
+
+            this.lines.add(null);
+            this.fonts.add(null);
+            this.moves.add(move);
+        }
+    }
+}
@@ -1,13 +1,19 @@
 package rocks.blackblock.screenbuilder.text;
 
 import net.minecraft.text.MutableText;
+import net.minecraft.text.PlainTextContent;
 import net.minecraft.text.Style;
 import net.minecraft.text.Text;
+import net.minecraft.text.TextContent;
+import net.minecraft.text.TranslatableTextContent;
 import net.minecraft.util.Identifier;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The base font class
@@ -23,7 +29,18 @@ public class Font {
     private static final int DEFAULT_WIDTH = 6;
 
     // All the registered fonts
-    private static final Map<String,Font> registeredFonts = new HashMap<>();
+    // (Fonts can be registered from worker threads, like the lazily created pixel line fonts)
+    private static final Map<String,Font> registeredFonts = new ConcurrentHashMap<>();
+
+    // All the registered fonts by their identifier
+    private static final Map<Identifier,Font> registered_identifiers = new ConcurrentHashMap<>();
+
+    // The reusable text width measurer of each thread
+    private static final ThreadLocal<WidthMeasurer> WIDTH_MEASURER = ThreadLocal.withInitial(WidthMeasurer::new);
+
+    // Incremented each time a width is registered on any font,
+    // so inheriting width tables know when to resolve again
+    private static volatile int width_revision = 0;
 
     // Register the default Minecraft font
     public static final Font DEFAULT = new Font("minecraft:default", 8);
@@ -64,6 +81,9 @@ public class Font {
     protected Font parent;
     protected Map<Character, Integer> widths = new HashMap<>();
 
+    // The resolved widths, including the ones of the parent fonts
+    private volatile WidthTable width_table = null;
+
     /**
      * @param id     the namespaced ID of the font, as used by the resource pack (i.e. "minecraft:default")
      * @param height the default height of the characters in the font, as specified in the resource pack
@@ -164,9 +184,30 @@ public class Font {
      * @since   0.1.1
      */
     public static Font getRegistered(String id) {
+
+        if (id == null) {
+            return null;
+        }
+
         return registeredFonts.get(id);
     }
 
+    /**
+     * Lookup a registered font by its identifier
+     *
+     * @param   identifier   The identifier of the wanted font
+     *
+     * @since   0.5.0
+     */
+    public static Font getRegistered(Identifier identifier) {
+
+        if (identifier == null) {
+            return null;
+        }
+
+        return registered_identifiers.get(identifier);
+    }
+
     /**
      * Registers a Font to be accessed statically later, through {@link Font#getRegistered(String)}
      *
@@ -175,6 +216,7 @@ public class Font {
     public static void register(Font font) {
         String id = font.getId();
         registeredFonts.put(id, font);
+        registered_identifiers.put(font.identifier, font);
     }
 
     /**
@@ -185,6 +227,87 @@ public class Font {
      */
     public void registerWidth(char character, int width) {
         widths.put(character, width);
+        width_revision++;
+    }
+
+    /**
+     * Get the resolved width table of this font,
+     * (re)build it when widths have been registered since
+     *
+     * @since   0.5.0
+     */
+    private WidthTable getWidthTable() {
+
+        WidthTable table = this.width_table;
+        int revision = width_revision;
+
+        if (table == null || table.revision != revision) {
+            table = this.resolveWidthTable(revision);
+            this.width_table = table;
+        }
+
+        return table;
+    }
+
+    /**
+     * Merge the widths of this font with the ones of its parents
+     *
+     * @since   0.5.0
+     */
+    private WidthTable resolveWidthTable(int revision) {
+
+        WidthTable parent_table = null;
+
+        if (this.parent != null) {
+            parent_table = this.parent.getWidthTable();
+        }
+
+        // Fonts without widths of their own simply share the parent's table
+        if (this.widths.isEmpty()) {
+            if (parent_table == null) {
+                return new WidthTable(revision, null, null, null);
+            }
+
+            return new WidthTable(revision, parent_table.widths, parent_table.sparse_chars, parent_table.sparse_widths);
+        }
+
+        byte[] widths = new byte[WidthTable.SIZE];
+        TreeMap<Character, Integer> sparse = new TreeMap<>();
+
+        if (parent_table != null && parent_table.widths != null) {
+            System.arraycopy(parent_table.widths, 0, widths, 0, WidthTable.SIZE);
+
+            for (int i = 0; i < parent_table.sparse_chars.length; i++) {
+                sparse.put(parent_table.sparse_chars[i], parent_table.sparse_widths[i]);
+            }
+        } else {
+            Arrays.fill(widths, (byte) DEFAULT_WIDTH);
+        }
+
+        for (Map.Entry<Character, Integer> entry : this.widths.entrySet()) {
+            char character = entry.getKey();
+            int width = entry.getValue();
+
+            if (width > Byte.MIN_VALUE && width <= Byte.MAX_VALUE) {
+                widths[character] = (byte) width;
+                sparse.remove(character);
+            } else {
+                widths[character] = WidthTable.SPARSE;
+                sparse.put(character, width);
+            }
+        }
+
+        char[] sparse_chars = new char[sparse.size()];
+        int[] sparse_widths = new int[sparse.size()];
+        int i = 0;
+
+        for (Map.Entry<Character, Integer> entry : sparse.entrySet()) {
+            sparse_chars[i] = entry.getKey();
+            sparse_widths[i] = entry.getValue();
+            i++;
+        }
+
+        return new WidthTable(revision, widths, sparse_chars, sparse_widths);
     }
 
     /**
@@ -203,16 +326,21 @@ public class Font {
      * @param   scale     Whether to scale the width according to the font's height
      */
     public int getWidth(char character, boolean scale) {
+        return this.getWidth(this.getWidthTable(), character, scale);
+    }
 
-        Integer result = widths.getOrDefault(character, null);
+    /**
+     * Gets the width of a given character using the given table
+     *
+     * @param   table     The resolved width table of this font
+     * @param   character The character to get the width for
+     * @param   scale     Whether to scale the width according to the font's height
+     *
+     * @since   0.5.0
+     */
+    private int getWidth(WidthTable table, char character, boolean scale) {
 
-        if (result == null) {
-            if (parent != null) {
-                result = parent.getWidth(character, false);
-            } else {
-                result = DEFAULT_WIDTH;
-            }
-        }
+        int result = table.get(character);
 
         // Formula by Sentropic
         if (scale && this != DEFAULT && character != ' ') {
@@ -229,29 +357,10 @@ public class Font {
      * @param   original_text_group    The text to calculate the width for
      *
      * @since   0.4.1
+     * @version 0.5.0
      */
     public int getWidth(Text original_text_group) {
-
-        AtomicInteger result = new AtomicInteger();
-
-        MiniText.walkOver(original_text_group, (str, text_content, style, font_id) -> {
-
-            Font font = null;
-
-            if (font_id != null) {
-                font = Font.getRegistered(font_id.toString());
-            }
-
-            if (font == null) {
-                font = DEFAULT;
-            }
-
-            int width = font.getWidth(str);
-
-            result.addAndGet(width);
-        });
-
-        return result.get();
+        return WIDTH_MEASURER.get().measure(original_text_group);
     }
 
     /**
@@ -263,11 +372,15 @@ public class Font {
      * @since   0.1.1
      */
     public int getWidth(String text, boolean scale) {
+
+        WidthTable table = this.getWidthTable();
+        int length = text.length();
         int result = 0;
 
-        for (char character : text.toCharArray()) {
-            result += this.getWidth(character, scale);
+        for (int i = 0; i < length; i++) {
+            result += this.getWidth(table, text.charAt(i), scale);
         }
+
         return result;
     }
 
@@ -355,14 +468,38 @@ public class Font {
      * @param   extra_style  Extra stylings
      */
     public void addTo(TextGroup group, String text, Style extra_style) {
+        group.ensureGroup(this.resolveStyle(extra_style)).append(text);
+    }
 
-        Style style = this.font_style;
+    /**
+     * Get the style of this font combined with the given extra style.
+     * The result can be kept and passed to addResolvedTo() later,
+     * so it doesn't have to be created again each time.
+     *
+     * @param   extra_style  Extra stylings
+     *
+     * @since   0.5.0
+     */
+    public Style resolveStyle(Style extra_style) {
 
-        if (extra_style != null) {
-            style = extra_style.withParent(style);
+        if (extra_style == null) {
+            return this.font_style;
         }
 
-        group.ensureGroup(style).append(text);
+        return extra_style.withParent(this.font_style);
+    }
+
+    /**
+     * Add the given text to the text builder
+     *
+     * @param   builder         The builder to add to
+     * @param   text            The String to turn into Text
+     * @param   resolved_style  A style made by resolveStyle()
+     *
+     * @since   0.5.0
+     */
+    public void addResolvedTo(TextBuilder builder, String text, Style resolved_style) {
+        builder.getCurrentGroup().ensureGroup(resolved_style).append(text);
     }
 
     /**
@@ -408,60 +545,10 @@ public class Font {
      * Get the next (safe) character to use in the custom font
      *
      * @since   0.1.1
+     * @version 0.5.0
      */
     public static char getNextChar(char current_char) {
-
-        current_char++;
-
-        // Skip the space & non-breaking space because that's a fixed width
-        if (current_char == 32 || current_char == 160 || current_char == 132) {
-            return getNextChar(current_char);
-        } else if (current_char >= 130 && current_char <= 140) {
-            current_char = 140;
-            return getNextChar(current_char);
-        } else if (current_char >= 155 && current_char <= 160) {
-            current_char = 160;
-            return getNextChar(current_char);
-        } else if (current_char == '\\' || current_char == '§' || current_char == '&' || current_char == 173) {
-            return getNextChar(current_char);
-        } else if (current_char == 56) {
-            // Skip 8 & 9
-            current_char = 58;
-        } else if (current_char == 1539) {
-            current_char = 1786;
-        } else {
-
-            String test;
-
-            do {
-
-                // Do a directionality test first
-                // (Right-to-left characters break stuff)
-                if (Font.isRightToLeft(current_char)) {
-                    current_char++;
-                    continue;
-                }
-
-                int type = Character.getType(current_char);
-
-                // Unassigned characters can behave weirdly
-                if (type == Character.UNASSIGNED) {
-                    current_char++;
-                    continue;
-                }
-
-                // Skip combining characters too
-                test = "" + current_char;
-
-                if (test.matches("\\p{M}")) {
-                    current_char++;
-                } else {
-                    break;
-                }
-            } while (true);
-        }
-
-        return current_char;
+        return GlyphAllocator.getNextChar(current_char);
     }
 
     static {
@@ -541,4 +628,139 @@ public class Font {
         register(DEFAULT);
         register(SPACE);
     }
+
+    /**
+     * Measures the width of a Text tree without recursion or allocations
+     * (The stack is kept & reused by each thread)
+     *
+     * @since   0.5.0
+     */
+    private static class WidthMeasurer {
+
+        // The texts that still have to be measured
+        private Text[] texts = new Text[32];
+
+        // The font each of those texts inherits
+        private Font[] fonts = new Font[32];
+
+        /**
+         * Get the width of the given text and all its siblings
+         *
+         * @since   0.5.0
+         */
+        private int measure(Text root) {
+
+            if (root == null) {
+                return 0;
+            }
+
+            int result = 0;
+            int size = 0;
+
+            this.texts[size] = root;
+            this.fonts[size] = DEFAULT;
+            size++;
+
+            while (size > 0) {
+                size--;
+                Text text = this.texts[size];
+                Font font = this.fonts[size];
+                this.texts[size] = null;
+
+                Identifier font_id = MiniText.getOwnFont(text.getStyle());
+
+                if (font_id != null) {
+                    font = registered_identifiers.get(font_id);
+
+                    if (font == null) {
+                        font = DEFAULT;
+                    }
+                }
+
+                TextContent content = text.getContent();
+                String str = null;
+
+                if (content instanceof PlainTextContent plain) {
+                    str = plain.string();
+                } else if (content instanceof TranslatableTextContent translatable) {
+                    str = translatable.getKey();
+                }
+
+                if (str != null && !str.isEmpty()) {
+                    result += font.getWidth(str);
+                }
+
+                List<Text> siblings = text.getSiblings();
+                int sibling_count = siblings.size();
+
+                if (size + sibling_count > this.texts.length) {
+                    int capacity = Math.max(this.texts.length * 2, size + sibling_count);
+                    this.texts = Arrays.copyOf(this.texts, capacity);
+                    this.fonts = Arrays.copyOf(this.fonts, capacity);
+                }
+
+                // Push them in reverse, so they're measured in order
+                for (int i = sibling_count - 1; i >= 0; i--) {
+                    this.texts[size] = siblings.get(i);
+                    this.fonts[size] = font;
+                    size++;
+                }
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * The flattened widths of a font (and all its parents):
+     * one byte per BMP character, with a sparse fallback
+     * for widths that do not fit in a byte
+     *
+     * @since   0.5.0
+     */
+    private static class WidthTable {
+
+        // The amount of characters in the BMP
+        private static final int SIZE = Character.MAX_VALUE + 1;
+
+        // Marks a character whose width is in the sparse arrays
+        private static final byte SPARSE = Byte.MIN_VALUE;
+
+        // The width revision this table was resolved at
+        private final int revision;
+
+        // The width of each character (null if all are the default width)
+        private final byte[] widths;
+
+        // The sorted characters with a width that doesn't fit in a byte
+        private final char[] sparse_chars;
+
+        // The widths of those characters
+        private final int[] sparse_widths;
+
+        private WidthTable(int revision, byte[] widths, char[] sparse_chars, int[] sparse_widths) {
+            this.revision = revision;
+            this.widths = widths;
+            this.sparse_chars = sparse_chars == null ? new char[0] : sparse_chars;
+            this.sparse_widths = sparse_widths == null ? new int[0] : sparse_widths;
+        }
+
+        /**
+         * Get the width of the given character
+         */
+        private int get(char character) {
+
+            if (this.widths == null) {
+                return DEFAULT_WIDTH;
+            }
+
+            byte width = this.widths[character];
+
+            if (width != SPARSE) {
+                return width;
+            }
+
+            return this.sparse_widths[Arrays.binarySearch(this.sparse_chars, character)];
+        }
+    }
 }
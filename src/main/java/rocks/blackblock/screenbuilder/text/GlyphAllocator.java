@@ -0,0 +1,261 @@
+package rocks.blackblock.screenbuilder.text;
+
+import rocks.blackblock.bib.util.BibLog;
+
+/**
+ * Hands out the (safe) characters to use in a custom font.
+ * The usable codepoints of the Basic Multilingual Plane are only
+ * determined once, after that allocating is a simple bitmap scan.
+ *
+ * @author  Jelle De Loecker   <jelle@elevenways.be>
+ * @since   0.5.0
+ */
+public class GlyphAllocator implements BibLog.Argable {
+
+    // The amount of codepoints in the Basic Multilingual Plane
+    private static final int CODEPOINTS = 0x10000;
+
+    // The bitmap of codepoints that can be used in a custom font
+    private static final long[] USABLE = createBitmap();
+
+    // The name to use when reporting
+    private final String name;
+
+    // The character the cursor was reset to
+    private char start_char;
+
+    // The last allocated character
+    private char current_char;
+
+    // The amount of allocated characters
+    private int allocated = 0;
+
+    /**
+     * Create an allocator
+     *
+     * @param   name         The name of the font (for reporting)
+     * @param   start_char   The character to start after (it is never used itself)
+     *
+     * @since   0.5.0
+     */
+    public GlyphAllocator(String name, char start_char) {
+        this.name = name;
+        this.reset(start_char);
+    }
+
+    /**
+     * Scan the Basic Multilingual Plane for usable codepoints
+     *
+     * @since   0.5.0
+     */
+    private static long[] createBitmap() {
+
+        long[] result = new long[CODEPOINTS >> 6];
+
+        for (int codepoint = 0; codepoint < CODEPOINTS; codepoint++) {
+            if (isUsable((char) codepoint)) {
+                result[codepoint >> 6] |= 1L << codepoint;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Can the given character be used in a custom font?
+     *
+     * @since   0.5.0
+     */
+    private static boolean isUsable(char character) {
+
+        // Right-to-left characters break stuff
+        if (Font.isRightToLeft(character)) {
+            return false;
+        }
+
+        int type = Character.getType(character);
+
+        // Unassigned characters can behave weirdly,
+        // and combining characters (\p{M}) can't be used either
+        return type != Character.UNASSIGNED
+                && type != Character.NON_SPACING_MARK
+                && type != Character.ENCLOSING_MARK
+                && type != Character.COMBINING_SPACING_MARK;
+    }
+
+    /**
+     * Get the first usable codepoint at or after the given one
+     *
+     * @return   The codepoint, or -1 if there are none left
+     *
+     * @since   0.5.0
+     */
+    private static int nextUsable(int codepoint) {
+
+        if (codepoint >= CODEPOINTS) {
+            return -1;
+        }
+
+        int index = codepoint >> 6;
+        long word = USABLE[index] & (-1L << codepoint);
+
+        while (word == 0) {
+            index++;
+
+            if (index == USABLE.length) {
+                return -1;
+            }
+
+            word = USABLE[index];
+        }
+
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Get the next (safe) codepoint after the given one
+     *
+     * @return   The codepoint, or -1 if there are none left
+     *
+     * @since   0.5.0
+     */
+    static int nextCodepoint(int current) {
+
+        int codepoint = current + 1;
+
+        // Skip the space & non-breaking space because that's a fixed width
+        // (The skipped characters themselves are never checked)
+        while (true) {
+            if (codepoint == 32 || codepoint == 160 || codepoint == 132) {
+                codepoint++;
+            } else if (codepoint >= 130 && codepoint <= 140) {
+                codepoint = 141;
+            } else if (codepoint >= 155 && codepoint <= 160) {
+                codepoint = 161;
+            } else if (codepoint == '\\' || codepoint == '§' || codepoint == '&' || codepoint == 173) {
+                codepoint++;
+            } else {
+                break;
+            }
+        }
+
+        if (codepoint == 56) {
+            // Skip 8 & 9
+            return 58;
+        } else if (codepoint == 1539) {
+            return 1786;
+        }
+
+        return nextUsable(codepoint);
+    }
+
+    /**
+     * Get the next (safe) character after the given one
+     *
+     * @since   0.5.0
+     */
+    public static char getNextChar(char current_char) {
+
+        int codepoint = nextCodepoint(current_char);
+
+        if (codepoint < 0) {
+            throw new IllegalStateException("There are no more usable characters after " + (int) current_char);
+        }
+
+        return (char) codepoint;
+    }
+
+    /**
+     * Reset the cursor
+     *
+     * @param   start_char   The character to start after (it is never used itself)
+     *
+     * @since   0.5.0
+     */
+    public void reset(char start_char) {
+        this.start_char = start_char;
+        this.current_char = start_char;
+        this.allocated = 0;
+    }
+
+    /**
+     * Allocate the next character
+     *
+     * @since   0.5.0
+     */
+    public char next() {
+
+        int codepoint = nextCodepoint(this.current_char);
+
+        if (codepoint < 0) {
+            throw new IllegalStateException("Font " + this.name + " ran out of usable characters after " + this.allocated + " allocations");
+        }
+
+        this.current_char = (char) codepoint;
+        this.allocated++;
+
+        return this.current_char;
+    }
+
+    /**
+     * Get the last allocated character
+     *
+     * @since   0.5.0
+     */
+    public char getCurrentChar() {
+        return this.current_char;
+    }
+
+    /**
+     * Get the amount of allocated characters
+     *
+     * @since   0.5.0
+     */
+    public int getAllocatedCount() {
+        return this.allocated;
+    }
+
+    /**
+     * Get the amount of characters that can still be allocated
+     *
+     * @since   0.5.0
+     */
+    public int getRemainingCount() {
+
+        int result = 0;
+        int codepoint = nextCodepoint(this.current_char);
+
+        while (codepoint >= 0) {
+            result++;
+            codepoint = nextCodepoint(codepoint);
+        }
+
+        return result;
+    }
+
+    /**
+     * Create a BibLog.Arg representation
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public BibLog.Arg toBBLogArg() {
+        var result = BibLog.createArg(this);
+        result.add("name", this.name);
+        result.add("start_char", (int) this.start_char);
+        result.add("current_char", (int) this.current_char);
+        result.add("allocated", this.allocated);
+        result.add("remaining", this.getRemainingCount());
+        return result;
+    }
+
+    /**
+     * Return a string representation of this allocator
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public String toString() {
+        return this.toBBLogArg().toString();
+    }
+}
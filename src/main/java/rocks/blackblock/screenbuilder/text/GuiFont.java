@@ -2,16 +2,29 @@ package rocks.blackblock.screenbuilder.text;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import io.github.theepicblock.polymc.api.resource.ModdedResources;
 import io.github.theepicblock.polymc.api.resource.PolyMcResourcePack;
 import io.github.theepicblock.polymc.impl.misc.logging.SimpleLogger;
 import net.minecraft.util.Formatting;
+import org.jetbrains.annotations.Nullable;
 import rocks.blackblock.screenbuilder.BBSB;
+import rocks.blackblock.screenbuilder.textures.BaseTexture;
 import rocks.blackblock.screenbuilder.textures.TexturePiece;
 import rocks.blackblock.screenbuilder.utils.GuiUtils;
+import rocks.blackblock.screenbuilder.utils.PngEncoder;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The GUI font class, used to register pieces of GUI textures in a font
@@ -22,13 +35,18 @@ import java.util.HashMap;
  */
 public class GuiFont extends Font {
 
-    private ArrayList<TexturePiece> texture_pieces = new ArrayList<>();
+    // The registered texture offsets & pieces, in registration order
+    private final ArrayList<Registration> registrations = new ArrayList<>();
     private int index = 0;
-    private char current_char = (char) 33;
+
+    // The allocator of the characters (we don't use 33)
+    private final GlyphAllocator allocator;
 
     public GuiFont(String name) {
         super(name, 0);
 
+        this.allocator = new GlyphAllocator(name, (char) 33);
+
         // GUI Screen Titles are always colored grey, and any coloring "tints" the bitmap used for the character
         // So we always have to undo the tinting, by setting the color to white
         this.font_style = this.font_style.withColor(Formatting.WHITE);
@@ -41,8 +59,15 @@ public class GuiFont extends Font {
      */
     public char getNextChar() {
         this.index++;
-        this.current_char = Font.getNextChar(this.current_char);
-        return this.current_char;
+        return this.allocator.next();
+    }
+
+    /**
+     * Get the amount of characters that can still be used
+     * @since   0.5.0
+     */
+    public int getRemainingCharCount() {
+        return this.allocator.getRemainingCount();
     }
 
     /**
@@ -50,7 +75,7 @@ public class GuiFont extends Font {
      * @since   0.1.1
      */
     public void registerTexturePiece(TexturePiece piece) {
-        this.texture_pieces.add(piece);
+        this.registrations.add(new Registration(null, 0, piece));
 
         if (BBSB.HAS_INITIALIZED) {
             BBSB.log("Warning! Registering texture piece after initialization:", piece);
@@ -59,38 +84,78 @@ public class GuiFont extends Font {
     }
 
     /**
-     * Get the JSON string for this font
+     * Add all the pieces of the given texture's Y offset
+     * (Its glyphs have to be assigned already)
+     * @since   0.5.0
      */
-    public JsonObject getJson() {
+    public void registerTextureOffset(BaseTexture texture, int y_offset) {
+        this.registrations.add(new Registration(texture, y_offset, null));
 
-        JsonObject root = new JsonObject();
-        JsonArray providers = new JsonArray();
-        root.add("providers", providers);
+        if (BBSB.HAS_INITIALIZED) {
+            BBSB.log("Warning! Registering texture offset after initialization:", texture, y_offset);
+        }
+    }
 
-        HashMap<String, JsonArray> provider_chars = new HashMap<>();
+    /**
+     * Get all the registered texture pieces, in registration order
+     * @since   0.5.0
+     */
+    public List<TexturePiece> getTexturePieces() {
 
-        // Always add the space provider
-        JsonObject space_provider = new JsonObject();
-        space_provider.addProperty("type", "space");
-        JsonObject advances_obj = new JsonObject();
-        advances_obj.addProperty(" ", 4);
-        space_provider.add("advances", advances_obj);
-        providers.add(space_provider);
+        List<TexturePiece> result = new ArrayList<>();
+
+        for (Registration registration : this.registrations) {
+            if (registration.piece() != null) {
+                result.add(registration.piece());
+            } else {
+                result.addAll(registration.texture().getPieceViews(registration.y_offset()));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Group the texture pieces by their image & ascent.
+     * Each group becomes one bitmap provider, in the order they were first used.
+     *
+     * @since   0.5.0
+     */
+    protected List<Provider> getProviders() {
+        return this.getProviders(null);
+    }
 
-        for (TexturePiece piece : this.texture_pieces) {
-            String path = piece.getPath();
-            String ascent_id = path + "_" + piece.getAscent();
+    /**
+     * Group the texture pieces by their image & ascent.
+     * Pieces whose image has been deduplicated point to the shared image's file,
+     * but still get their own provider: the image is split into as many columns
+     * as the provider has characters, so providers can never be merged.
+     *
+     * @param   shared_paths   The path of the shared image of each piece path (or null)
+     *
+     * @since   0.5.0
+     */
+    protected List<Provider> getProviders(@Nullable Map<String, String> shared_paths) {
 
-            JsonArray chars = provider_chars.get(ascent_id);
+        LinkedHashMap<String, Provider> providers = new LinkedHashMap<>();
 
-            // If this provider doesn't have an entry for the current ascent_id yet,
-            // create it
-            if (chars == null) {
+        for (TexturePiece piece : this.getTexturePieces()) {
+            int ascent = piece.getAscent();
+            int height = piece.getGuiHeight();
+            String piece_path = piece.getPath();
+            String path = piece_path;
 
-                JsonObject provider = new JsonObject();
+            if (shared_paths != null) {
+                path = shared_paths.getOrDefault(piece_path, piece_path);
+            }
 
-                int ascent = piece.getAscent();
-                int height = piece.getGuiHeight();
+            String ascent_id = piece_path + "_" + ascent;
+
+            Provider provider = providers.get(ascent_id);
+
+            // If there is no provider for the current ascent_id yet,
+            // create it
+            if (provider == null) {
 
                 // If the ascent is larger than the height,
                 // minecraft will refuse to load the entire font
@@ -100,67 +165,184 @@ public class GuiFont extends Font {
                     BBSB.log("The ascent of " + piece.getJsonFilename() + " is larger than its height, this will cause issues!");
                 }
 
-                provider.addProperty("type", "bitmap");
-                provider.addProperty("file", piece.getJsonFilename());
-                provider.addProperty("ascent", ascent);
-                provider.addProperty("height", height);
-
-                chars = new JsonArray();
-                provider.add("chars", chars);
-                providers.add(provider);
-
-                provider_chars.put(ascent_id, chars);
-                chars.add("");
+                provider = new Provider(BBSB.NAMESPACE + ":" + path, ascent, height, new StringBuilder());
+                providers.put(ascent_id, provider);
             }
 
             // Multiple array elements count as different Y levels,
-            // so we need to add the characters to the first entry
-            String char_string = chars.get(0).getAsString();
-            char_string += piece.getCharacter();
-            chars.remove(0);
-            chars.add(char_string);
+            // so all the characters go into a single string
+            provider.chars().append(piece.getCharacter());
+        }
+
+        return new ArrayList<>(providers.values());
+    }
+
+    /**
+     * Get the JSON for this font
+     *
+     * @version 0.5.0
+     */
+    public JsonObject getJson() {
+
+        JsonObject root = new JsonObject();
+        JsonArray providers = new JsonArray();
+        root.add("providers", providers);
+
+        // Always add the space provider
+        JsonObject space_provider = new JsonObject();
+        space_provider.addProperty("type", "space");
+        JsonObject advances_obj = new JsonObject();
+        advances_obj.addProperty(" ", 4);
+        space_provider.add("advances", advances_obj);
+        providers.add(space_provider);
+
+        for (Provider provider : this.getProviders()) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("type", "bitmap");
+            entry.addProperty("file", provider.file());
+            entry.addProperty("ascent", provider.ascent());
+            entry.addProperty("height", provider.height());
+
+            JsonArray chars = new JsonArray();
+            chars.add(provider.chars().toString());
+            entry.add("chars", chars);
+
+            providers.add(entry);
         }
 
         return root;
     }
 
+    /**
+     * Write the JSON of the given providers to the given writer,
+     * without building it in memory first
+     *
+     * @since   0.5.0
+     */
+    protected static void writeJson(JsonWriter writer, List<Provider> providers) throws IOException {
+
+        writer.beginObject();
+        writer.name("providers");
+        writer.beginArray();
+
+        // Always add the space provider
+        writer.beginObject();
+        writer.name("type").value("space");
+        writer.name("advances");
+        writer.beginObject();
+        writer.name(" ").value(4);
+        writer.endObject();
+        writer.endObject();
+
+        for (Provider provider : providers) {
+            writer.beginObject();
+            writer.name("type").value("bitmap");
+            writer.name("file").value(provider.file());
+            writer.name("ascent").value(provider.ascent());
+            writer.name("height").value(provider.height());
+            writer.name("chars");
+            writer.beginArray();
+            writer.value(provider.chars().toString());
+            writer.endArray();
+            writer.endObject();
+        }
+
+        writer.endArray();
+        writer.endObject();
+        writer.flush();
+    }
+
     /**
      * Add this font resources to the given data pack
+     *
+     * @version 0.5.0
      */
     public void addToResourcePack(ModdedResources moddedResources, PolyMcResourcePack pack, SimpleLogger logger) {
 
-        JsonObject root = this.getJson();
-        String json = root.toString();
+        if (BBSB.DEBUG) {
+            BBSB.log("GUI font character usage:", this.allocator);
+        }
+
+        // The path of the shared image of each piece path
+        HashMap<String, String> shared_paths = new HashMap<>();
 
-        String target_path_str = "font/gui.json";
+        // The path of each unique image
+        HashMap<ByteBuffer, String> content_paths = new HashMap<>();
 
-        pack.setAsset(BBSB.NAMESPACE, target_path_str, (location, gson) -> {
-            GuiUtils.writeToPath(location, json);
-        });
+        int duplicate_count = 0;
+        long duplicate_bytes = 0;
+
+        // Get (or encode) the image of each path in the background first.
+        // Pieces with the same pixels are only encoded once
+        LinkedHashMap<String, TexturePiece> path_pieces = new LinkedHashMap<>();
+        LinkedHashMap<String, CompletableFuture<byte[]>> path_images = new LinkedHashMap<>();
 
-        // @TODO: add the images of the texture pieces to the pack
+        for (TexturePiece piece : this.getTexturePieces()) {
+            path_pieces.putIfAbsent(piece.getPath(), piece);
+        }
+
+        for (Map.Entry<String, TexturePiece> entry : path_pieces.entrySet()) {
+            TexturePiece piece = entry.getValue();
+            path_images.put(entry.getKey(), PngEncoder.SHARED.encode(piece::getImage, piece::getEncodedImage));
+        }
 
-        HashMap<String, Boolean> registered_piece = new HashMap<>();
+        for (Map.Entry<String, CompletableFuture<byte[]>> entry : path_images.entrySet()) {
 
-        for (TexturePiece piece : this.texture_pieces) {
+            String image_path = entry.getKey();
+            TexturePiece piece = path_pieces.get(image_path);
+            byte[] data = entry.getValue().join();
 
-            String image_path = piece.getPath();
-            Boolean already_registered = registered_piece.get(image_path);
+            if (data == null) {
+                BBSB.log("Texture piece has no image:", piece);
+                shared_paths.put(image_path, image_path);
+                continue;
+            }
 
-            if (already_registered == null) {
-                registered_piece.put(image_path, true);
-                String path = "textures/" + image_path;
+            // Identical images (of different textures, or copies of the same one)
+            // are only added once, and all of their providers point to that file
+            String shared_path = content_paths.putIfAbsent(ByteBuffer.wrap(data), image_path);
 
-                pack.setAsset(BBSB.NAMESPACE, path, (location, gson) -> {
-                    GuiUtils.writeToPath(location, piece.getImage());
-                });
+            if (shared_path != null) {
+                shared_paths.put(image_path, shared_path);
+                duplicate_count++;
+                duplicate_bytes += data.length;
+                continue;
             }
+
+            shared_paths.put(image_path, image_path);
+
+            pack.setAsset(BBSB.NAMESPACE, "textures/" + image_path, (location, gson) -> {
+                GuiUtils.writeToPath(location, data);
+            });
         }
 
-        /*
-        for (TexturePiece piece : this.texture_pieces) {
-            String path = "assets/bbsb/textures/" + piece.getPath();
-            GuiUtils.writeToPath(buildLocation.resolve(path), piece.getImage());
-        }*/
+        BBSB.log("Added", content_paths.size(), "GUI texture piece images, deduplicated", duplicate_count, "images (" + duplicate_bytes + " bytes)");
+
+        List<Provider> providers = this.getProviders(shared_paths);
+
+        pack.setAsset(BBSB.NAMESPACE, "font/gui.json", (location, gson) -> {
+            // The stream belongs to the pack, so it is flushed but not closed
+            JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(location, StandardCharsets.UTF_8)));
+
+            try {
+                writeJson(writer, providers);
+            } catch (IOException e) {
+                BBSB.log("Failed to write the GUI font:", e);
+            }
+        });
     }
+
+    /**
+     * A bitmap provider of the font & the characters that use it
+     *
+     * @since   0.5.0
+     */
+    protected record Provider(String file, int ascent, int height, StringBuilder chars) {}
+
+    /**
+     * A registered Y offset of a texture, or a single piece
+     *
+     * @since   0.5.0
+     */
+    private record Registration(@Nullable BaseTexture texture, int y_offset, @Nullable TexturePiece piece) {}
 }
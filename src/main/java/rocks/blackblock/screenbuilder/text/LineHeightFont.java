@@ -127,8 +127,10 @@ public class LineHeightFont extends Font {
      *                  we need to split it up into two pieces
      *
      * @return
+     *
+     * @version 0.5.0
      */
-    public static BufferedImage getFontImage(int piece) {
+    public static synchronized BufferedImage getFontImage(int piece) {
 
         if (images.containsKey(piece)) {
             return images.get(piece);
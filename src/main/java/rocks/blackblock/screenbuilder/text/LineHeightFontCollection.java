@@ -5,9 +5,19 @@ import io.github.theepicblock.polymc.api.resource.PolyMcResourcePack;
 import io.github.theepicblock.polymc.impl.misc.logging.SimpleLogger;
 import org.jetbrains.annotations.Nullable;
 import rocks.blackblock.screenbuilder.BBSB;
+import rocks.blackblock.screenbuilder.utils.DiskCache;
 import rocks.blackblock.screenbuilder.utils.GuiUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * A collection of fonts:
@@ -83,16 +93,52 @@ public abstract class LineHeightFontCollection extends FontCollection {
     }
 
     /**
-     * Get a LineHeightFont for the given line index
+     * Get a LineHeightFont for the given line index,
+     * creating it when this collection generates its fonts on demand.
      * If it can't be found, return null
      *
      * @param   line_index   The line index to get the font for
      *
      * @since   0.3.1
+     * @version 0.5.0
      */
     @Nullable
     public LineHeightFont getLineHeightFontForLine(int line_index) {
-        return this.line_height_fonts.get(line_index);
+        synchronized (this.line_height_fonts) {
+            LineHeightFont font = this.line_height_fonts.get(line_index);
+
+            if (font == null) {
+                font = this.createFontForLine(line_index);
+
+                if (font != null) {
+                    this.line_height_fonts.put(line_index, font);
+                }
+            }
+
+            return font;
+        }
+    }
+
+    /**
+     * Create the font for the given line index.
+     * Collections that generate all their fonts up-front return null.
+     *
+     * @param   line_index   The line index to create the font for
+     *
+     * @since   0.5.0
+     */
+    @Nullable
+    protected LineHeightFont createFontForLine(int line_index) {
+        return null;
+    }
+
+    /**
+     * Get the first font of this collection
+     *
+     * @since   0.5.0
+     */
+    protected LineHeightFont getFirstFont() {
+        return this.first_font;
     }
 
     /**
@@ -143,7 +189,7 @@ public abstract class LineHeightFontCollection extends FontCollection {
      * @since   0.1.2
      */
     public int getWidth(String text, boolean scale) {
-        return this.first_font.getWidth(text, scale);
+        return this.getFirstFont().getWidth(text, scale);
     }
 
     /**
@@ -205,12 +251,24 @@ public abstract class LineHeightFontCollection extends FontCollection {
      * @param   pack   The (PolyMC) resource pack to add the fonts to
      *
      * @since   0.1.1
+     * @version 0.5.0
      */
     @Override
     public void addToResourcePack(ModdedResources moddedResources, PolyMcResourcePack pack, SimpleLogger logger) {
 
-        for (LineHeightFont font : this.line_height_fonts.values()) {
-            String json = font.getJson();
+        List<LineHeightFont> fonts;
+
+        synchronized (this.line_height_fonts) {
+            fonts = new ArrayList<>(this.line_height_fonts.values());
+        }
+
+        fonts.sort(Comparator.comparingInt(LineHeightFont::getLineIndex));
+
+        String[] jsons = this.getFontJsons(fonts);
+
+        for (int i = 0; i < fonts.size(); i++) {
+            LineHeightFont font = fonts.get(i);
+            String json = jsons[i];
             String path_str = "font/" + this.getFontPathForLine(font.getLineIndex()) + ".json";
 
             pack.setAsset(BBSB.NAMESPACE, path_str, (location, gson) -> {
@@ -219,6 +277,112 @@ public abstract class LineHeightFontCollection extends FontCollection {
         }
     }
 
+    /**
+     * Get the JSON of each of the given fonts,
+     * from the disk cache if nothing changed since it was stored
+     *
+     * @param   fonts   The fonts, sorted by their line index
+     *
+     * @since   0.5.0
+     */
+    protected String[] getFontJsons(List<LineHeightFont> fonts) {
+
+        String cache_key = null;
+
+        if (DiskCache.ENABLED) {
+            StringBuilder line_indexes = new StringBuilder();
+
+            for (LineHeightFont font : fonts) {
+                line_indexes.append(font.getLineIndex()).append(',');
+            }
+
+            cache_key = DiskCache.SHARED.createKey(
+                    "fonts",
+                    this.getClass().getName(),
+                    this.getFontFolderId(),
+                    line_indexes,
+                    AbsoluteFontCollection.BASE_NEGATIVE,
+                    AbsoluteFontCollection.BASE_POSITIVE
+            );
+
+            String[] cached = readFontJsons(DiskCache.SHARED.get(cache_key), fonts.size());
+
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        String[] result = new String[fonts.size()];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = fonts.get(i).getJson();
+        }
+
+        if (cache_key != null) {
+            DiskCache.SHARED.put(cache_key, writeFontJsons(result));
+        }
+
+        return result;
+    }
+
+    /**
+     * Read the font JSONs of a disk cache entry
+     *
+     * @return   The JSONs, or null if the entry is missing or invalid
+     *
+     * @since   0.5.0
+     */
+    @Nullable
+    private static String[] readFontJsons(byte[] entry, int count) {
+
+        if (entry == null) {
+            return null;
+        }
+
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(entry))) {
+
+            if (input.readInt() != count) {
+                return null;
+            }
+
+            String[] result = new String[count];
+
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                result[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            return result;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Create a disk cache entry of the given font JSONs
+     *
+     * @since   0.5.0
+     */
+    private static byte[] writeFontJsons(String[] jsons) {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(jsons.length);
+
+            for (String json : jsons) {
+                byte[] data = json.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(data.length);
+                output.write(data);
+            }
+        } catch (IOException e) {
+            return null;
+        }
+
+        return bytes.toByteArray();
+    }
+
     /**
      * Get the string representation of this collection
      *
@@ -3,6 +3,8 @@ package rocks.blackblock.screenbuilder.text;
 import com.google.common.collect.Lists;
 import net.minecraft.text.*;
 import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+import rocks.blackblock.screenbuilder.mixin.StyleAccessor;
 
 /**
  * Basically the same as LiteralText,
@@ -111,6 +113,7 @@ public class MiniText extends MutableText {
      * Walk over this text's strings and all its siblings
      *
      * @since   0.4.1
+     * @version 0.5.0
      */
     public static void walkOver(Text text, TextStringWalker walker, Identifier parent_font) {
 
@@ -118,13 +121,10 @@ public class MiniText extends MutableText {
         TextContent content = text.getContent();
         String str = null;
 
-        Identifier font = null;
+        Identifier font = getOwnFont(style);
 
-        if (style != null) {
-            font = style.getFont();
-        }
-
-        if (font != null) {
+        // Texts without a font of their own inherit it
+        if (font == null) {
             font = parent_font;
         }
 
@@ -157,19 +157,17 @@ public class MiniText extends MutableText {
      * Walk over this text and all its siblings
      *
      * @since   0.4.1
+     * @version 0.5.0
      */
     private static void walkOver(Text text, TextContentWalker walker, Identifier parent_font) {
 
         Style style = text.getStyle();
         TextContent content = text.getContent();
 
-        Identifier font = null;
-
-        if (style != null) {
-            font = style.getFont();
-        }
+        Identifier font = getOwnFont(style);
 
-        if (font != null) {
+        // Texts without a font of their own inherit it
+        if (font == null) {
             font = parent_font;
         }
 
@@ -181,6 +179,22 @@ public class MiniText extends MutableText {
         });
     }
 
+    /**
+     * Get the font that was explicitly set on the given style
+     * (Unlike Style#getFont(), this does not fall back to the default font)
+     *
+     * @since   0.5.0
+     */
+    @Nullable
+    public static Identifier getOwnFont(Style style) {
+
+        if (style == null) {
+            return null;
+        }
+
+        return ((StyleAccessor) (Object) style).getRawFont();
+    }
+
     public interface TextContentWalker {
         void accept(TextContent text_content, Style style, Identifier font);
     }
@@ -62,7 +62,7 @@ public class PixelFont extends Font {
 
         String char_string = "";
 
-        for (char c : collection.color_characters) {
+        for (char c : collection.getColorCharacters()) {
             char_string += c;
         }
 
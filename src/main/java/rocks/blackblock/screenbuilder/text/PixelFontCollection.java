@@ -6,13 +6,17 @@ import io.github.theepicblock.polymc.impl.misc.logging.SimpleLogger;
 import net.minecraft.block.MapColor;
 import rocks.blackblock.screenbuilder.BBSB;
 import rocks.blackblock.screenbuilder.utils.GuiUtils;
+import rocks.blackblock.screenbuilder.utils.PngEncoder;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
 import java.awt.image.IndexColorModel;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class PixelFontCollection extends LineHeightFontCollection {
 
@@ -23,15 +27,15 @@ public class PixelFontCollection extends LineHeightFontCollection {
     private static ArrayList<Color> COLORS = createColors();
     private static IndexColorModel COLOR_MODEL;
 
-    // The top & bottom pixels
-    private BufferedImage positive_pixels = null;
-    private BufferedImage negative_pixels = null;
-
     // The width & height of a character in this font
     private int width;
 
-    // The map of colors: Top pixel color, bottom pixel color »» character
-    protected HashMap<Integer, HashMap<Integer, Character>> color_map = new HashMap<>();
+    // The amount of lines (each line is 2 pixels high)
+    public static final int LINE_COUNT = 120;
+
+    // The character of each color pair: [top color index * color count + bottom color index]
+    // (Only assigned when first needed)
+    protected volatile char[] pair_characters = null;
 
     // The list of characters
     protected ArrayList<Character> color_characters = new ArrayList<>();
@@ -39,11 +43,12 @@ public class PixelFontCollection extends LineHeightFontCollection {
     // Create the actual collection
     public static PixelFontCollection PX01 = new PixelFontCollection(1, 2);
 
-    // The current char while generating (we don't use 32)
-    private char current_char;
+    // The allocator of the characters while generating
+    private GlyphAllocator allocator;
 
     /**
-     * Create a PixelFontCollection
+     * Create a PixelFontCollection.
+     * The characters & fonts are only created when they're first needed.
      *
      * @param   width
      * @param   height
@@ -51,8 +56,6 @@ public class PixelFontCollection extends LineHeightFontCollection {
     public PixelFontCollection(int width, int height) {
         super(height);
         this.width = width;
-
-        this.generateFonts();
     }
 
     /**
@@ -61,9 +64,27 @@ public class PixelFontCollection extends LineHeightFontCollection {
      * @since   0.1.1
      */
     public static Color getNearestColor(Color color) {
-        final byte index = ((byte[])COLOR_MODEL.getDataElements(color.getRGB(), null))[0];
-        Color result = COLORS.get(index);
-        return result;
+        return COLORS.get(getNearestColorIndex(color.getRGB()));
+    }
+
+    /**
+     * Get the index of the closest color to the given (A)RGB value.
+     * The alpha channel is ignored.
+     *
+     * @since   0.5.0
+     */
+    public static int getNearestColorIndex(int rgb) {
+        int cell = ((rgb >> 6) & 0x3F000) | ((rgb >> 4) & 0xFC0) | ((rgb >> 2) & 0x3F);
+        return Palette.LOOKUP[cell];
+    }
+
+    /**
+     * Get the amount of available colors
+     *
+     * @since   0.5.0
+     */
+    public static int getColorCount() {
+        return COLORS.size();
     }
 
     /**
@@ -205,76 +226,212 @@ public class PixelFontCollection extends LineHeightFontCollection {
      * @since   0.1.1
      */
     private char getNextChar() {
-        this.current_char = Font.getNextChar(this.current_char);
-        return this.current_char;
+        return this.allocator.next();
+    }
+
+    /**
+     * Get the amount of characters that can still be used
+     *
+     * @since   0.5.0
+     */
+    public int getRemainingCharCount() {
+        this.getPairCharacters();
+        return this.allocator.getRemainingCount();
+    }
+
+    /**
+     * Get the characters of all the color pairs,
+     * assigning them the first time
+     *
+     * @since   0.5.0
+     */
+    private char[] getPairCharacters() {
+
+        char[] result = this.pair_characters;
+
+        if (result != null) {
+            return result;
+        }
+
+        synchronized (this) {
+            if (this.pair_characters == null) {
+                this.assignCharacters();
+            }
+
+            return this.pair_characters;
+        }
+    }
+
+    /**
+     * Assign a character to each color pair
+     *
+     * @since   0.5.0
+     */
+    private void assignCharacters() {
+
+        int chars = COLORS.size() * COLORS.size();
+
+        // Reset the current char (we won't actually use 34)
+        this.allocator = new GlyphAllocator(this.getFontFolderId(), (char) 34);
+
+        char[] result = new char[chars];
+
+        for (int x = 0; x < chars; x++) {
+            char pair_char = this.getNextChar();
+            result[x] = pair_char;
+            this.color_characters.add(pair_char);
+        }
+
+        this.pair_characters = result;
     }
 
     /**
-     * Generate the actual fonts
+     * Get the characters of all the color pairs, in the order of the pixel image
+     *
+     * @since   0.5.0
+     */
+    public List<Character> getColorCharacters() {
+        this.getPairCharacters();
+        return this.color_characters;
+    }
+
+    /**
+     * Generate all the fonts that have not been created yet
      *
      * @since   0.1.1
+     * @version 0.5.0
      */
     @Override
     protected void generateFonts() {
+        for (int i = 0; i < LINE_COUNT; i++) {
+            this.getFontForLine(i);
+        }
+    }
+
+    /**
+     * Draw the pixel image: each color pair gets a column
+     * with the top color above the bottom color.
+     *
+     * This is written straight into the raster, but it reproduces what
+     * drawing 1x1 rectangles with AWT used to do (those actually covered 2x2 pixels
+     * and blended the translucent first color), so the image stays identical.
+     *
+     * @since   0.5.0
+     */
+    protected BufferedImage createPixelImage() {
 
-        // Generate the colors & pixels first
         int color_count = COLORS.size();
         int chars = color_count * color_count;
 
-        // Reset the current char (we won't actually use 34)
-        this.current_char = 34;
+        int[] argb = new int[color_count];
 
-        this.positive_pixels = new BufferedImage(chars, 2, BufferedImage.TYPE_INT_ARGB);
-        this.negative_pixels = new BufferedImage(chars, 120, BufferedImage.TYPE_INT_ARGB);
+        for (int i = 0; i < color_count; i++) {
+            argb[i] = COLORS.get(i).getRGB();
+        }
 
-        Graphics positive = this.positive_pixels.getGraphics();
-        Graphics negative = this.negative_pixels.getGraphics();
+        BufferedImage image = new BufferedImage(chars, 2, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
 
         for (int top_index = 0; top_index < color_count; top_index++) {
-            Color top_color = COLORS.get(top_index);
             int start_x = top_index * color_count;
 
-            HashMap<Integer, Character> map = new HashMap<>();
-            color_map.put(top_color.getRGB(), map);
-
             for (int bottom_index = 0; bottom_index < color_count; bottom_index++) {
-                Color bottom_color = COLORS.get(bottom_index);
-
                 int x = start_x + bottom_index;
 
-                positive.setColor(top_color);
-                positive.drawRect(x, 0, 1, 1);
+                drawSquare(pixels, chars, x, 0, argb[top_index]);
+                drawSquare(pixels, chars, x, 1, argb[bottom_index]);
+            }
+        }
 
-                positive.setColor(bottom_color);
-                positive.drawRect(x, 1, 1, 1);
+        return image;
+    }
 
-                char pair_char = this.getNextChar();
-                map.put(bottom_color.getRGB(), pair_char);
-                color_characters.add(pair_char);
+    /**
+     * Blend the given color over the 2x2 pixels at the given position
+     * (clipped to the 2 pixel high image)
+     *
+     * @since   0.5.0
+     */
+    private static void drawSquare(int[] pixels, int width, int x, int y, int color) {
+        for (int row = y; row < y + 2 && row < 2; row++) {
+            for (int column = x; column < x + 2 && column < width; column++) {
+                int index = row * width + column;
+                pixels[index] = blendOver(pixels[index], color);
             }
         }
+    }
+
+    /**
+     * Composite the given (non-premultiplied) source color over the destination color,
+     * using the same 8-bit arithmetic as AWT's source-over fill
+     *
+     * @since   0.5.0
+     */
+    private static int blendOver(int destination, int source) {
+
+        int source_alpha = source >>> 24;
 
-        PixelFont font;
+        if (source_alpha == 255 || destination == 0) {
+            return source;
+        }
 
-        for (int i = 0; i < 120; i++) {
-            font = new PixelFont(this, i);
-            line_fonts.put(i, font);
-            Font.register(font);
+        if (source_alpha == 0) {
+            return destination;
         }
+
+        int destination_factor = multiply8(255 - source_alpha, destination >>> 24);
+        int result_alpha = source_alpha + destination_factor;
+        int result = result_alpha << 24;
+
+        for (int shift = 0; shift < 24; shift += 8) {
+            int channel = multiply8(source_alpha, (source >> shift) & 0xFF) + multiply8(destination_factor, (destination >> shift) & 0xFF);
+
+            if (result_alpha < 255) {
+                channel = (channel * 255 + result_alpha / 2) / result_alpha;
+            }
+
+            result |= Math.min(255, channel) << shift;
+        }
+
+        return result;
+    }
+
+    /**
+     * Multiply two 8-bit values as fractions of 255
+     *
+     * @since   0.5.0
+     */
+    private static int multiply8(int a, int b) {
+        return (a * b + 127) / 255;
     }
 
     /**
-     * Get the font for the given line index
+     * Get the font for the given line index,
+     * creating it the first time
      *
      * @param   line_index   The line index to get the font for
      *
      * @since   0.1.1
+     * @version 0.5.0
      */
     @Override
     public Font getFontForLine(int line_index) {
-        Font result = this.line_fonts.getOrDefault(line_index, null);
 
-        return result;
+        if (line_index < 0 || line_index >= LINE_COUNT) {
+            return null;
+        }
+
+        synchronized (this.line_fonts) {
+            PixelFont font = this.line_fonts.get(line_index);
+
+            if (font == null) {
+                font = new PixelFont(this, line_index);
+                this.line_fonts.put(line_index, font);
+                Font.register(font);
+            }
+
+            return font;
+        }
     }
 
     @Override
@@ -318,15 +475,26 @@ public class PixelFontCollection extends LineHeightFontCollection {
      */
     public Character getCharacter(Color top, Color bottom) {
 
-        Character result = null;
+        int top_index = COLORS.indexOf(top);
+        int bottom_index = COLORS.indexOf(bottom);
 
-        HashMap<Integer, Character> map = this.color_map.get(top.getRGB());
-
-        if (map != null) {
-            result = map.get(bottom.getRGB());
+        if (top_index < 0 || bottom_index < 0) {
+            return null;
         }
 
-        return result;
+        return this.getCharacter(top_index, bottom_index);
+    }
+
+    /**
+     * Get the character for the given color indexes
+     *
+     * @param   top_index      The index of the top pixel's color
+     * @param   bottom_index   The index of the bottom pixel's color
+     *
+     * @since   0.5.0
+     */
+    public char getCharacter(int top_index, int bottom_index) {
+        return this.getPairCharacters()[top_index * COLORS.size() + bottom_index];
     }
 
     /**
@@ -335,11 +503,20 @@ public class PixelFontCollection extends LineHeightFontCollection {
      * @param   pack   The (PolyMC) resource pack to add the fonts to
      *
      * @since   0.1.1
+     * @version 0.5.0
      */
     @Override
     public void addToResourcePack(ModdedResources moddedResources, PolyMcResourcePack pack, SimpleLogger logger) {
 
-        for (PixelFont font : this.line_fonts.values()) {
+        this.generateFonts();
+
+        List<PixelFont> fonts;
+
+        synchronized (this.line_fonts) {
+            fonts = new ArrayList<>(this.line_fonts.values());
+        }
+
+        for (PixelFont font : fonts) {
             String json = font.getJson().toString();
             String path_str = "font/px" + this.width + "x" + this.character_height + "/l" + font.getLineIndex() + ".json";
 
@@ -348,9 +525,74 @@ public class PixelFontCollection extends LineHeightFontCollection {
             });
         }
 
+        CompletableFuture<byte[]> image = PngEncoder.SHARED.encode(this::createPixelImage);
+
         pack.setAsset(BBSB.NAMESPACE, "textures/font/pxtop.png", (location, gson) -> {
-            GuiUtils.writeToPath(location, this.positive_pixels);
+            GuiUtils.writeToPath(location, image.join());
         });
     }
 
+    /**
+     * The lookup table of the nearest palette color
+     * for every color in an 18-bit (6 bits per channel) color cube.
+     * It is only built the first time an image is printed.
+     *
+     * @since   0.5.0
+     */
+    private static class Palette {
+
+        // The nearest color index of each cell in the cube
+        private static final byte[] LOOKUP = createLookup();
+
+        /**
+         * Find the nearest color of each cell,
+         * using the same metric as the IndexColorModel did
+         *
+         * @since   0.5.0
+         */
+        private static byte[] createLookup() {
+
+            int color_count = COLORS.size();
+            int[] reds = new int[color_count];
+            int[] greens = new int[color_count];
+            int[] blues = new int[color_count];
+
+            for (int i = 0; i < color_count; i++) {
+                Color color = COLORS.get(i);
+                reds[i] = color.getRed();
+                greens[i] = color.getGreen();
+                blues[i] = color.getBlue();
+            }
+
+            byte[] result = new byte[1 << 18];
+
+            for (int cell = 0; cell < result.length; cell++) {
+
+                // Use the center of the cell
+                int red = ((cell >> 12) << 2) | 2;
+                int green = (((cell >> 6) & 0x3F) << 2) | 2;
+                int blue = ((cell & 0x3F) << 2) | 2;
+
+                int nearest = 0;
+                int smallest_error = Integer.MAX_VALUE;
+
+                for (int i = 0; i < color_count; i++) {
+                    int red_diff = reds[i] - red;
+                    int green_diff = greens[i] - green;
+                    int blue_diff = blues[i] - blue;
+                    int error = red_diff * red_diff + green_diff * green_diff + blue_diff * blue_diff;
+
+                    if (error < smallest_error) {
+                        nearest = i;
+                        smallest_error = error;
+                    }
+                }
+
+                result[cell] = (byte) nearest;
+            }
+
+            return result;
+        }
+    }
+
 }
@@ -0,0 +1,358 @@
+package rocks.blackblock.screenbuilder.text;
+
+import net.minecraft.util.Identifier;
+import rocks.blackblock.bib.util.BibLog;
+import rocks.blackblock.screenbuilder.textures.GuiTexture;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, content-keyed cache of encoded images.
+ * Printing the same pixels at the same vertical position again
+ * only replays the glyph strings that were encoded the first time.
+ *
+ * @author  Jelle De Loecker   <jelle@elevenways.be>
+ * @since   0.5.0
+ */
+public class PixelImageCache implements BibLog.Argable {
+
+    // The shared image cache
+    public static final PixelImageCache SHARED = new PixelImageCache(16 * 1024 * 1024);
+
+    // The maximum amount of decoded textures to keep
+    private static final int MAX_TEXTURES = 64;
+
+    // The cached entries, least recently used first
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    // The decoded textures, least recently used first
+    private final LinkedHashMap<Identifier, BufferedImage> textures = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Identifier, BufferedImage> eldest) {
+            return this.size() > MAX_TEXTURES;
+        }
+    };
+
+    // The maximum estimated size of all the entries
+    private long max_bytes;
+
+    // The current estimated size of all the entries
+    private long used_bytes = 0;
+
+    // Statistics
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Create a new cache
+     *
+     * @param   max_bytes   The maximum estimated memory use (0 disables the cache)
+     *
+     * @since   0.5.0
+     */
+    public PixelImageCache(long max_bytes) {
+        this.max_bytes = max_bytes;
+    }
+
+    /**
+     * Set the maximum estimated memory use
+     *
+     * @since   0.5.0
+     */
+    public synchronized void setMaxBytes(long max_bytes) {
+        this.max_bytes = max_bytes;
+        this.evict();
+    }
+
+    /**
+     * Get the encoded version of the given pixels
+     *
+     * @param   pixels             The ARGB pixels, row by row
+     * @param   width              The width of the image
+     * @param   height             The height of the image
+     * @param   y_offset           The vertical position of the image, relative to the builder's origin
+     * @param   skip_transparent   Replace runs of fully transparent pixels with a movement
+     *
+     * @since   0.5.0
+     */
+    public EncodedImage get(int[] pixels, int width, int height, int y_offset, boolean skip_transparent) {
+
+        Key key = new Key(pixels, width, height, y_offset, skip_transparent);
+        Entry entry;
+
+        synchronized (this) {
+            entry = this.entries.get(key);
+
+            if (entry != null) {
+                this.hits++;
+                return entry.image;
+            }
+
+            this.misses++;
+        }
+
+        EncodedImage image = EncodedImage.encode(pixels, width, height, y_offset, skip_transparent);
+
+        // The pixels could belong to an image that is modified later on
+        key = key.withOwnPixels();
+        entry = new Entry(image, image.getBytes() + pixels.length * 4L);
+
+        synchronized (this) {
+
+            // Entries that would never fit are not stored at all
+            if (entry.bytes > this.max_bytes) {
+                return image;
+            }
+
+            Entry previous = this.entries.put(key, entry);
+
+            if (previous != null) {
+                this.used_bytes -= previous.bytes;
+            }
+
+            this.used_bytes += entry.bytes;
+            this.evict();
+        }
+
+        return image;
+    }
+
+    /**
+     * Get the decoded image of the given texture,
+     * which is only read from the mod resources once
+     *
+     * @param   texture_path   The identifier of the texture
+     *
+     * @since   0.5.0
+     */
+    public BufferedImage getTexture(Identifier texture_path) throws Exception {
+
+        BufferedImage image;
+
+        synchronized (this.textures) {
+            image = this.textures.get(texture_path);
+        }
+
+        if (image != null) {
+            return image;
+        }
+
+        try (InputStream image_stream = GuiTexture.getFileStream(texture_path)) {
+            image = ImageIO.read(image_stream);
+        }
+
+        if (image == null) {
+            throw new IllegalArgumentException("Unable to decode texture " + texture_path);
+        }
+
+        synchronized (this.textures) {
+            this.textures.put(texture_path, image);
+        }
+
+        return image;
+    }
+
+    /**
+     * Remove the least recently used entries until it fits again
+     *
+     * @since   0.5.0
+     */
+    private void evict() {
+
+        Iterator<Entry> iterator = this.entries.values().iterator();
+
+        while (this.used_bytes > this.max_bytes && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            iterator.remove();
+            this.used_bytes -= entry.bytes;
+            this.evictions++;
+        }
+    }
+
+    /**
+     * Remove all the entries
+     *
+     * @since   0.5.0
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.used_bytes = 0;
+
+        synchronized (this.textures) {
+            this.textures.clear();
+        }
+    }
+
+    /**
+     * Get the amount of cache hits
+     *
+     * @since   0.5.0
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Get the amount of cache misses
+     *
+     * @since   0.5.0
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Get the amount of evicted entries
+     *
+     * @since   0.5.0
+     */
+    public synchronized long getEvictions() {
+        return this.evictions;
+    }
+
+    /**
+     * Get the percentage of lookups that were served from the cache
+     *
+     * @since   0.5.0
+     */
+    public synchronized double getHitRate() {
+
+        long total = this.hits + this.misses;
+
+        if (total == 0) {
+            return 0;
+        }
+
+        return this.hits * 100.0 / total;
+    }
+
+    /**
+     * Get the current estimated memory use
+     *
+     * @since   0.5.0
+     */
+    public synchronized long getUsedBytes() {
+        return this.used_bytes;
+    }
+
+    /**
+     * Create a BibLog.Arg representation
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public synchronized BibLog.Arg toBBLogArg() {
+        var result = BibLog.createArg(this);
+        result.add("size", this.entries.size());
+        result.add("used_bytes", this.used_bytes);
+        result.add("max_bytes", this.max_bytes);
+        result.add("hits", this.hits);
+        result.add("misses", this.misses);
+        result.add("hit_rate", this.getHitRate());
+        result.add("evictions", this.evictions);
+
+        synchronized (this.textures) {
+            result.add("textures", this.textures.size());
+        }
+
+        return result;
+    }
+
+    /**
+     * Return a string representation of this cache
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public String toString() {
+        return this.toBBLogArg().toString();
+    }
+
+    /**
+     * The content-based key of an image at a certain position
+     * (The hash is only calculated once)
+     *
+     * @since   0.5.0
+     */
+    private static class Key {
+
+        private final int[] pixels;
+        private final int width;
+        private final int height;
+        private final int y_offset;
+        private final boolean skip_transparent;
+        private final int hash;
+
+        private Key(int[] pixels, int width, int height, int y_offset, boolean skip_transparent) {
+            this(pixels, width, height, y_offset, skip_transparent, (((Arrays.hashCode(pixels) * 31 + width) * 31 + height) * 31 + y_offset) * 2 + (skip_transparent ? 1 : 0));
+        }
+
+        private Key(int[] pixels, int width, int height, int y_offset, boolean skip_transparent, int hash) {
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+            this.y_offset = y_offset;
+            this.skip_transparent = skip_transparent;
+            this.hash = hash;
+        }
+
+        /**
+         * Get a key with its own copy of the pixels
+         *
+         * @since   0.5.0
+         */
+        private Key withOwnPixels() {
+            return new Key(this.pixels.clone(), this.width, this.height, this.y_offset, this.skip_transparent, this.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key other)) {
+                return false;
+            }
+
+            return this.hash == other.hash
+                    && this.width == other.width
+                    && this.height == other.height
+                    && this.y_offset == other.y_offset
+                    && this.skip_transparent == other.skip_transparent
+                    && Arrays.equals(this.pixels, other.pixels);
+        }
+    }
+
+    /**
+     * A cached encoded image
+     *
+     * @since   0.5.0
+     */
+    private static class Entry {
+
+        // The shared encoded image
+        private final EncodedImage image;
+
+        // The estimated memory use (including the key's pixels)
+        private final long bytes;
+
+        private Entry(EncodedImage image, long bytes) {
+            this.image = image;
+            this.bytes = bytes;
+        }
+    }
+}
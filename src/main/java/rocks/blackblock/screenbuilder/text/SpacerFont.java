@@ -22,6 +22,9 @@ public class SpacerFont extends Font {
     // A sorted map of all the negaitve space
     private Map<Integer, Character> sorted_negative_space_map = null;
 
+    // The precomputed movements (rebuilt when a new width is registered)
+    private volatile MovementTable movement_table = null;
+
     public SpacerFont(@NotNull String id, int height) {
         super(id, height);
     }
@@ -38,10 +41,13 @@ public class SpacerFont extends Font {
 
         if (width < 0) {
             negative_space_map.put(width, character);
+            sorted_negative_space_map = null;
         } else {
             positive_space_map.put(width, character);
             sorted_positive_space_map = null;
         }
+
+        this.movement_table = null;
     }
 
     /**
@@ -103,15 +109,26 @@ public class SpacerFont extends Font {
     }
 
     /**
-     * Add the given movement to the builder
+     * Add the given movement to the builder.
+     * The glyphs are appended straight into the current group's buffer.
      *
      * @param builder             the builder to add the movement to
      * @param wanted_position     the wanted movement in pixels
      * @param current_position    the starting position
      */
     public void addMovementToBuilder(TextBuilder builder, int wanted_position, int current_position) {
-        String movement = this.getMovementString(wanted_position, current_position);
-        this.addTo(builder, movement);
+
+        int wanted_change = wanted_position - current_position;
+
+        // Nothing to move, but the groups still have to be ensured
+        if (wanted_change == 0) {
+            this.addTo(builder, "");
+            return;
+        }
+
+        TextGroup group = builder.getCurrentGroup().ensureGroup(this.font_style).getAppendTarget();
+
+        this.appendMovement(group.getTextBuffer(), wanted_change);
     }
 
     /**
@@ -121,6 +138,154 @@ public class SpacerFont extends Font {
      * @param current_position    the starting position
      */
     public String getMovementString(int wanted_position, int current_position) {
+        StringBuilder builder = new StringBuilder();
+        this.appendMovement(builder, wanted_position - current_position);
+        return builder.toString();
+    }
+
+    /**
+     * Append the characters for the given movement to the given buffer.
+     * Movements inside the table range are a single array copy,
+     * larger movements are decomposed without any allocations.
+     *
+     * @param target           the buffer to append to
+     * @param wanted_change    the wanted movement in pixels
+     *
+     * @since   0.5.0
+     */
+    public void appendMovement(StringBuilder target, int wanted_change) {
+
+        if (wanted_change == 0) {
+            return;
+        }
+
+        MovementTable table = this.getMovementTable();
+
+        if (wanted_change > table.max_change) {
+
+            // Movements this big always start with repeating the widest glyph
+            int repeat = wanted_change / table.max_change;
+
+            for (int i = 0; i < repeat; i++) {
+                target.append(table.widest_positive_char);
+            }
+
+            wanted_change -= repeat * table.max_change;
+
+            if (wanted_change == 0) {
+                return;
+            }
+        } else if (wanted_change < table.min_change) {
+            // Negative movements beyond the widest negative glyph
+            // have never produced any characters
+            return;
+        }
+
+        int index = wanted_change - table.min_change;
+        int start = table.offsets[index];
+
+        target.append(table.chars, start, table.offsets[index + 1] - start);
+    }
+
+    /**
+     * Is the given character a pure movement character?
+     * (The '$' splitting character is not: it is needed to fix rendering the layers)
+     *
+     * @param character   the character to check
+     *
+     * @since   0.5.0
+     */
+    public boolean isMovementCharacter(char character) {
+        return Arrays.binarySearch(this.getMovementTable().movement_chars, character) >= 0;
+    }
+
+    /**
+     * Replace runs of consecutive movement characters with
+     * the shortest known movement of the same total width
+     *
+     * @param text   the text to collapse the movements of
+     *
+     * @since   0.5.0
+     */
+    public void collapseMovements(StringBuilder text) {
+
+        int length = text.length();
+
+        if (length < 2) {
+            return;
+        }
+
+        StringBuilder result = new StringBuilder(length);
+        StringBuilder movement = new StringBuilder();
+        boolean changed = false;
+        int index = 0;
+
+        while (index < length) {
+
+            if (!this.isMovementCharacter(text.charAt(index))) {
+                result.append(text.charAt(index));
+                index++;
+                continue;
+            }
+
+            int start = index;
+            int width = 0;
+
+            while (index < length && this.isMovementCharacter(text.charAt(index))) {
+                width += this.getWidth(text.charAt(index), false);
+                index++;
+            }
+
+            if (index - start > 1) {
+                movement.setLength(0);
+                this.appendMovement(movement, width);
+
+                if (movement.length() < index - start && this.getWidth(movement.toString()) == width) {
+                    result.append(movement);
+                    changed = true;
+                    continue;
+                }
+            }
+
+            result.append(text, start, index);
+        }
+
+        if (changed) {
+            text.setLength(0);
+            text.append(result);
+        }
+    }
+
+    /**
+     * Get the movement table, build it if needed
+     *
+     * @since   0.5.0
+     */
+    private MovementTable getMovementTable() {
+
+        MovementTable table = this.movement_table;
+
+        if (table == null) {
+            table = new MovementTable(this);
+            this.movement_table = table;
+        }
+
+        return table;
+    }
+
+    /**
+     * Calculate the movement string the slow way.
+     * This is only used to fill the movement table
+     * (and by the tests, to compare the table against).
+     *
+     * @param wanted_change     the wanted movement in pixels
+     *
+     * @since   0.5.0
+     */
+    String calculateMovementString(int wanted_change) {
+
+        int wanted_position = wanted_change;
+        int current_position = 0;
 
         // The temp calculation
         int temp_calc;
@@ -130,8 +295,6 @@ public class SpacerFont extends Font {
 
         StringBuilder builder = new StringBuilder();
 
-        int wanted_change = wanted_position - current_position;
-
         // If we have a negative moment, add negative spaces first
         if (wanted_position < current_position) {
 
@@ -210,4 +373,64 @@ public class SpacerFont extends Font {
         return builder.toString();
     }
 
+    /**
+     * The precomputed glyph sequence of every movement
+     * between the widest negative and the widest positive glyph
+     *
+     * @since   0.5.0
+     */
+    private static class MovementTable {
+
+        // The smallest & biggest movement in the table
+        private final int min_change;
+        private final int max_change;
+
+        // The character of the widest positive movement
+        private final char widest_positive_char;
+
+        // All the glyphs, one movement after the other
+        private final char[] chars;
+
+        // Where each movement starts in the chars array
+        private final int[] offsets;
+
+        // All the movement characters, sorted
+        private final char[] movement_chars;
+
+        private MovementTable(SpacerFont font) {
+
+            TreeMap<Integer, Character> negative = (TreeMap<Integer, Character>) font.negative_space_map;
+            TreeMap<Integer, Character> positive = (TreeMap<Integer, Character>) font.positive_space_map;
+
+            this.min_change = negative.isEmpty() ? 0 : negative.firstKey();
+            this.max_change = positive.isEmpty() ? 0 : positive.lastKey();
+            this.widest_positive_char = positive.isEmpty() ? ' ' : positive.lastEntry().getValue();
+
+            TreeSet<Character> movement_chars = new TreeSet<>(negative.values());
+            movement_chars.addAll(positive.values());
+
+            this.movement_chars = new char[movement_chars.size()];
+            int i = 0;
+
+            for (char character : movement_chars) {
+                this.movement_chars[i++] = character;
+            }
+
+            int size = this.max_change - this.min_change + 1;
+            StringBuilder all = new StringBuilder(size * 4);
+
+            this.offsets = new int[size + 1];
+
+            for (int change = this.min_change; change <= this.max_change; change++) {
+                this.offsets[change - this.min_change] = all.length();
+                all.append(font.calculateMovementString(change));
+            }
+
+            this.offsets[size] = all.length();
+
+            this.chars = new char[all.length()];
+            all.getChars(0, all.length(), this.chars, 0);
+        }
+    }
+
 }
@@ -12,13 +12,9 @@ import rocks.blackblock.screenbuilder.BBSB;
 import rocks.blackblock.screenbuilder.ScreenBuilder;
 import rocks.blackblock.screenbuilder.TexturedScreenHandler;
 import rocks.blackblock.screenbuilder.screen.ScreenInfo;
-import rocks.blackblock.screenbuilder.textures.GuiTexture;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -76,6 +72,25 @@ public class TextBuilder {
     // The current text group
     private TextGroup current_group = null;
 
+    // The pre-built static start of the title, if any
+    private TitleTemplate template = null;
+
+    // Should the groups be optimized before building?
+    private boolean optimize = true;
+
+    // Should images be skipped? (Used when a title is over budget)
+    private boolean skip_images = false;
+
+    // Should fully transparent pixels of images be left out?
+    // (Off by default, so existing images keep drawing them)
+    private boolean skip_transparent_pixels = false;
+
+    // The widget (or other object) that is currently adding to this builder
+    private Object active_source = null;
+
+    // The sources that printed images
+    private final List<Object> image_sources = new ArrayList<>();
+
     // The screenbuilder instance, if any
     private ScreenBuilder screen_builder;
 
@@ -646,7 +661,8 @@ public class TextBuilder {
      */
     public Text build() {
 
-        if (this.groups.size() == 1 && this.title == null) {
+        if (this.groups.size() == 1 && this.title == null && this.template == null) {
+            this.optimizeGroups();
             return this.groups.get(0).build();
         }
 
@@ -664,6 +680,14 @@ public class TextBuilder {
             }
         }
 
+        if (this.template != null) {
+            for (Text part : this.template.parts) {
+                text.append(part);
+            }
+        }
+
+        this.optimizeGroups();
+
         for (TextGroup group : this.groups) {
             group.buildInto(text);
         }
@@ -694,13 +718,167 @@ public class TextBuilder {
         return text;
     }
 
+    /**
+     * Set the widget (or other object) that is currently adding to this builder,
+     * so expensive output can be traced back to it
+     *
+     * @since   0.5.0
+     */
+    public TextBuilder setActiveSource(Object source) {
+        this.active_source = source;
+        return this;
+    }
+
+    /**
+     * Skip printing images, which are the most expensive part of a title
+     *
+     * @since   0.5.0
+     */
+    public TextBuilder setSkipImages(boolean skip_images) {
+        this.skip_images = skip_images;
+        return this;
+    }
+
+    /**
+     * Are images being skipped?
+     *
+     * @since   0.5.0
+     */
+    public boolean getSkipImages() {
+        return this.skip_images;
+    }
+
+    /**
+     * Leave out the fully transparent pixels of printed images
+     * (Long runs of them are replaced with a single movement).
+     * This is off by default: transparent pixels are normally drawn with their colour.
+     *
+     * @since   0.5.0
+     */
+    public TextBuilder setSkipTransparentPixels(boolean skip_transparent_pixels) {
+        this.skip_transparent_pixels = skip_transparent_pixels;
+        return this;
+    }
+
+    /**
+     * Are transparent pixels being left out?
+     *
+     * @since   0.5.0
+     */
+    public boolean getSkipTransparentPixels() {
+        return this.skip_transparent_pixels;
+    }
+
+    /**
+     * Get the sources that printed (or tried to print) images
+     *
+     * @since   0.5.0
+     */
+    public List<Object> getImageSources() {
+        return this.image_sources;
+    }
+
+    /**
+     * Enable or disable optimizing the groups before building
+     *
+     * @since   0.5.0
+     */
+    public TextBuilder setOptimize(boolean optimize) {
+        this.optimize = optimize;
+        return this;
+    }
+
+    /**
+     * Optimize the groups: drop empty ones, merge the ones with the same style,
+     * and collapse consecutive movements.
+     * The current group is left in place, so it can still be added to.
+     *
+     * @since   0.5.0
+     */
+    public void optimizeGroups() {
+
+        if (!this.optimize) {
+            return;
+        }
+
+        for (TextGroup group : this.groups) {
+            group.optimize();
+        }
+
+        TextGroup.optimizeGroups(this.groups, this.current_group);
+    }
+
+    /**
+     * Turn everything added so far into an immutable template,
+     * which can then be applied to other builders
+     *
+     * @since   0.5.0
+     */
+    public TitleTemplate compileTemplate() {
+
+        MutableText text = Text.literal("");
+
+        if (this.template != null) {
+            for (Text part : this.template.parts) {
+                text.append(part);
+            }
+        }
+
+        this.optimizeGroups();
+
+        for (TextGroup group : this.groups) {
+            group.buildInto(text);
+        }
+
+        return new TitleTemplate(
+                text.getSiblings(),
+                this.raw_x,
+                this.raw_y,
+                this.x_origin,
+                this.y_origin,
+                this.gui_y_origin,
+                this.x_text_start,
+                this.y_text_start,
+                this.x_title_center,
+                this.current_group.getColor(),
+                this.current_group.getFont()
+        );
+    }
+
+    /**
+     * Start this (still empty) builder from the given template:
+     * its parts are used as-is and the cursor is restored
+     *
+     * @since   0.5.0
+     */
+    public TextBuilder applyTemplate(TitleTemplate template) {
+
+        this.template = template;
+
+        this.raw_x = template.raw_x;
+        this.raw_y = template.raw_y;
+        this.x_origin = template.x_origin;
+        this.y_origin = template.y_origin;
+        this.gui_y_origin = template.gui_y_origin;
+        this.x_text_start = template.x_text_start;
+        this.y_text_start = template.y_text_start;
+        this.x_title_center = template.x_title_center;
+
+        // Continue in a group with the same style the template ended with
+        TextGroup group = this.createNewGroup();
+        group.setColor(template.end_color);
+        group.setFont(template.end_font);
+
+        return this;
+    }
+
     /**
      * Return the JSON representation
      *
      * @since   0.1.1
      */
     public String getJsonString() {
-        return BibText.serializeToJson(this.build()).toString();
+        return TitleCache.SHARED.getJson(this.build());
     }
 
     /**
@@ -714,13 +892,10 @@ public class TextBuilder {
      */
     public void printTexture(Identifier texture_path, int x, int y) {
 
-        InputStream image_stream = GuiTexture.getFileStream(texture_path);
-        byte[] data;
-        BufferedImage source_image = null;
+        BufferedImage source_image;
 
         try {
-            data = image_stream.readAllBytes();
-            source_image = ImageIO.read(new ByteArrayInputStream(data));
+            source_image = PixelImageCache.SHARED.getTexture(texture_path);
         } catch (Exception e) {
             System.out.println("Error loading image: " + texture_path);
             return;
@@ -752,66 +927,54 @@ public class TextBuilder {
      */
     public void printImage(BufferedImage image, int dx, int dy) {
 
-        int width = image.getWidth();
-        int height = image.getHeight();
-
-        Color original_top_color;
-        Color replacement_top_color;
-        Color original_bottom_color;
-        Color replacement_bottom_color;
-        Character pixel_char = null;
-
-        TextGroup group = this.ensureSpaceGroup();
-
-        // Make sure the cursor is at the wanted position
-        this.setCursor(dx);
-
-        for (int y = 0; y < height; y += 2) {
-
-            // Because each pixel prints an invisible pixel on the right,
-            // we need to print the line in 2 passes
-            for (int pass = 0; pass < 2; pass++) {
-                String pass_line = "";
-
-                int line_index = this.convertYToPixelLine(dy + y);
-
-                Font font = PixelFontCollection.PX01.getFontForLine(line_index);
-                int placed = 0;
+        if (this.skip_images) {
+            this.printEncodedImage(null, dx);
+            return;
+        }
 
-                for (int x = 0 - pass; x < width; x += 2) {
+        int[] pixels = EncodedImage.getPixels(image);
 
-                    if (x < 0) {
-                        // This will move it 1 pixel to the right
-                        pass_line += '9';
-                        continue;
-                    }
+        // Images are encoded once per vertical position
+        EncodedImage encoded = PixelImageCache.SHARED.get(pixels, image.getWidth(), image.getHeight(), this.getImageYOffset(dy), this.skip_transparent_pixels);
 
-                    original_top_color = new Color(image.getRGB(x, y));
-                    original_bottom_color = new Color(image.getRGB(x, y + 1));
+        this.printEncodedImage(encoded, dx);
+    }
 
-                    replacement_top_color = PixelFontCollection.getNearestColor(original_top_color);
-                    replacement_bottom_color = PixelFontCollection.getNearestColor(original_bottom_color);
+    /**
+     * Print an already encoded image to the screen.
+     * It should have been encoded for the same vertical position.
+     *
+     * @param   encoded   The encoded image (null to only move the cursor)
+     * @param   dx        The horizontal position
+     *
+     * @since   0.5.0
+     */
+    public void printEncodedImage(@Nullable EncodedImage encoded, int dx) {
 
-                    pixel_char = PixelFontCollection.PX01.getCharacter(replacement_top_color, replacement_bottom_color);
+        if (this.active_source != null && !this.image_sources.contains(this.active_source)) {
+            this.image_sources.add(this.active_source);
+        }
 
-                    if (pixel_char == null) {
-                        pixel_char = '8';
-                    }
+        this.ensureSpaceGroup();
 
-                    pass_line += pixel_char;
-                    placed++;
-                }
+        // Make sure the cursor is at the wanted position
+        this.setCursor(dx);
 
-                if (placed > 0) {
+        // When skipping images, the builder is left in the same state as after printing it
+        if (encoded == null || this.skip_images) {
+            return;
+        }
 
-                    this.insertUnsafe(pass_line, font);
+        encoded.printTo(this);
+    }
 
-                    // Move the cursor back to the beginning of the image.
-                    // Move it back 1 more pixel after the second pass
-                    this.moveCursorUnsafe(0 - (placed * 2) - 1 * pass);
-                }
-            }
-        }
+    /**
+     * Get the vertical offset to encode an image at the given position with
+     *
+     * @since   0.5.0
+     */
+    public int getImageYOffset(int dy) {
+        return dy - this.y_origin;
     }
 
     public void setOffsetsFrom(ScreenInfo info) {
@@ -6,6 +6,7 @@ import rocks.blackblock.screenbuilder.BBSB;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public class TextGroup {
 
@@ -17,7 +18,7 @@ public class TextGroup {
     private ClickEvent click_event = null;
     private HoverEvent hover_event = null;
 
-    private String main_text = null;
+    private StringBuilder main_text = null;
 
     private List<TextGroup> children = new ArrayList<>();
 
@@ -237,7 +238,7 @@ public class TextGroup {
      */
     public boolean isEmpty() {
 
-        if (this.main_text != null && this.main_text.length() > 0) {
+        if (this.main_text != null && !this.main_text.isEmpty()) {
             return false;
         }
 
@@ -286,15 +287,15 @@ public class TextGroup {
 
         if (style == null) {
             if (this.main_text != null && !this.main_text.isEmpty()) {
-                MiniText mini_text = new MiniText(this.main_text);
+                MiniText mini_text = new MiniText(this.main_text.toString());
                 text.append(mini_text);
                 mini_text.can_be_primitive = true;
             }
         } else {
-            String main_text = this.main_text;
+            String main_text = "";
 
-            if (main_text == null) {
-                main_text = "";
+            if (this.main_text != null) {
+                main_text = this.main_text.toString();
             }
 
             text = Text.literal(main_text);
@@ -316,10 +317,10 @@ public class TextGroup {
      */
     public Text build() {
 
-        String main_text = this.main_text;
+        String main_text = "";
 
-        if (main_text == null) {
-            main_text = "";
+        if (this.main_text != null) {
+            main_text = this.main_text.toString();
         }
 
         MutableText text = Text.literal(main_text);
@@ -374,17 +375,179 @@ public class TextGroup {
             return this;
         }
 
+        TextGroup target = this.getAppendTarget();
+        target.getTextBuffer().append(str);
+
+        return target;
+    }
+
+    /**
+     * Get the group that text should be appended to:
+     * this group, or a new child if it already has children
+     *
+     * @since   0.5.0
+     */
+    TextGroup getAppendTarget() {
+
         if (this.hasChildren()) {
-            return this.createChild().append(str);
+            return this.createChild();
         }
 
+        return this;
+    }
+
+    /**
+     * Get the buffer holding the main text of this group
+     *
+     * @since   0.5.0
+     */
+    StringBuilder getTextBuffer() {
+
         if (this.main_text == null) {
-            this.main_text = str;
-        } else {
-            this.main_text += str;
+            this.main_text = new StringBuilder();
         }
 
-        return this;
+        return this.main_text;
+    }
+
+    /**
+     * Get the color this group will actually be rendered with
+     * (Builder defaults are not part of the built Text, so they're ignored)
+     *
+     * @since   0.5.0
+     */
+    private TextColor getRenderColor() {
+
+        if (this.color != null) {
+            return this.color;
+        }
+
+        if (this.parent != null) {
+            return this.parent.getRenderColor();
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the font this group will actually be rendered with
+     *
+     * @since   0.5.0
+     */
+    private Identifier getRenderFont() {
+
+        if (this.font != null) {
+            return this.font;
+        }
+
+        if (this.parent != null) {
+            return this.parent.getRenderFont();
+        }
+
+        return null;
+    }
+
+    /**
+     * Does the given group render the same way as this one?
+     *
+     * @since   0.5.0
+     */
+    private boolean rendersLike(TextGroup other) {
+        return Objects.equals(this.getRenderColor(), other.getRenderColor())
+                && Objects.equals(this.getRenderFont(), other.getRenderFont())
+                && Objects.equals(this.click_event, other.click_event)
+                && Objects.equals(this.hover_event, other.hover_event);
+    }
+
+    /**
+     * Optimize this group and all of its children:
+     * empty groups are dropped, adjacent groups with the same style are merged,
+     * a lone child is hoisted into its parent and spacer runs are collapsed.
+     * The rendered glyphs & their positions stay the same.
+     *
+     * @since   0.5.0
+     */
+    void optimize() {
+
+        for (TextGroup child : this.children) {
+            child.optimize();
+        }
+
+        optimizeGroups(this.children, null);
+
+        // A group without text of its own can take over its only child
+        if (this.children.size() == 1 && (this.main_text == null || this.main_text.isEmpty())) {
+            TextGroup child = this.children.get(0);
+
+            if (child.color != null) {
+                this.color = child.color;
+            }
+
+            if (child.font != null) {
+                this.font = child.font;
+            }
+
+            if (child.click_event != null) {
+                this.click_event = child.click_event;
+            }
+
+            if (child.hover_event != null) {
+                this.hover_event = child.hover_event;
+            }
+
+            this.main_text = child.main_text;
+            this.children = child.children;
+
+            for (TextGroup grandchild : this.children) {
+                grandchild.parent = this;
+            }
+        }
+    }
+
+    /**
+     * Drop the empty groups of the given list & merge adjacent ones
+     * that render the same way. The group to keep can not be removed.
+     *
+     * @param   groups   The (already optimized) groups to go over
+     * @param   keep     A group that is still in use and has to stay
+     *
+     * @since   0.5.0
+     */
+    static void optimizeGroups(List<TextGroup> groups, TextGroup keep) {
+
+        groups.removeIf(group -> group != keep && group.isEmpty());
+
+        int index = 0;
+
+        while (index < groups.size() - 1) {
+            TextGroup current = groups.get(index);
+            TextGroup next = groups.get(index + 1);
+
+            // The text of the next group can only be appended
+            // if nothing (like children) comes in between
+            if (next == keep || current.hasChildren() || !current.rendersLike(next)) {
+                index++;
+                continue;
+            }
+
+            if (next.main_text != null) {
+                current.getTextBuffer().append(next.main_text);
+            }
+
+            current.children = next.children;
+
+            for (TextGroup child : current.children) {
+                child.parent = current;
+            }
+
+            groups.remove(index + 1);
+        }
+
+        for (TextGroup group : groups) {
+            if (group.main_text != null && Font.SPACE.identifier.equals(group.getRenderFont())) {
+                Font.SPACE.collapseMovements(group.main_text);
+            }
+        }
     }
 
 }
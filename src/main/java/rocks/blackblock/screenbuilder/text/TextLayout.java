@@ -0,0 +1,268 @@
+package rocks.blackblock.screenbuilder.text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The word-wrapped lines of a piece of text.
+ * Line breaks are only calculated once per (text, width, font collection),
+ * after that the cached layout is used.
+ *
+ * @author  Jelle De Loecker   <jelle@elevenways.be>
+ * @since   0.5.0
+ */
+public class TextLayout {
+
+    // Forced newlines
+    private static final Pattern NEWLINE = Pattern.compile("\r?\n|\r");
+
+    // The maximum amount of cached layouts
+    private static int max_entries = 512;
+
+    // The cached layouts, least recently used first
+    private static final LinkedHashMap<Key, TextLayout> CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, TextLayout> eldest) {
+            return this.size() > max_entries;
+        }
+    };
+
+    // The actual lines to print
+    private final List<String> lines;
+
+    private TextLayout(List<String> lines) {
+        this.lines = Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * Get the layout of the given text
+     *
+     * @param   text         The text to wrap
+     * @param   width        The maximum width of a line (0 or less for no wrapping)
+     * @param   collection   The font collection to measure with
+     *
+     * @since   0.5.0
+     */
+    public static TextLayout get(String text, int width, LineHeightFontCollection collection) {
+
+        if (text == null) {
+            text = "";
+        }
+
+        Key key = new Key(text, width, collection);
+        TextLayout layout;
+
+        synchronized (CACHE) {
+            layout = CACHE.get(key);
+        }
+
+        if (layout != null) {
+            return layout;
+        }
+
+        layout = new TextLayout(wrap(text, width, collection));
+
+        synchronized (CACHE) {
+            CACHE.put(key, layout);
+        }
+
+        return layout;
+    }
+
+    /**
+     * Set the maximum amount of cached layouts
+     *
+     * @since   0.5.0
+     */
+    public static void setMaxEntries(int max_entries) {
+        synchronized (CACHE) {
+            TextLayout.max_entries = max_entries;
+
+            while (CACHE.size() > max_entries) {
+                CACHE.remove(CACHE.keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Split the text into the actual lines to print
+     *
+     * @since   0.5.0
+     */
+    private static List<String> wrap(String text, int width, LineHeightFontCollection collection) {
+
+        int space_width = collection.getWidth(" ");
+
+        // Split on forced newlines
+        String[] lines = NEWLINE.split(text);
+
+        // Prepare actual lines to print
+        List<String> actual_lines = new ArrayList<>();
+
+        // Split the text into multiple, actual lines
+        for (String line_string : lines) {
+            // Get the width of this line
+            int line_width = collection.getWidth(line_string);
+
+            // If the line fits, just add it as is
+            if (line_width <= width) {
+                actual_lines.add(line_string);
+                continue;
+            }
+
+            // It doesn't fit, so split it into each word first
+            String[] words = line_string.split(" ");
+
+            int current_width = 0;
+            StringBuilder current_line = new StringBuilder();
+
+            // Add each word to the line
+            for (String word : words) {
+                // Get the width of this word (including space)
+                int word_width = collection.getWidth(word);
+
+                if (current_width > 0) {
+                    word_width += space_width;
+                }
+
+                // If the word fits, just add it as is
+                if (width <= 0 || current_width + word_width <= width || (current_line.length() == 0)) {
+                    current_width += word_width;
+
+                    // It's safe to always add the space at the end
+                    current_line.append(word).append(" ");
+                } else {
+                    actual_lines.add(current_line.toString());
+                    current_width = word_width;
+                    current_line = new StringBuilder(word + " ");
+                }
+            }
+
+            if (current_line.length() > 0) {
+                actual_lines.add(current_line.toString());
+            }
+        }
+
+        return actual_lines;
+    }
+
+    /**
+     * Get all the lines
+     *
+     * @since   0.5.0
+     */
+    public List<String> getLines() {
+        return this.lines;
+    }
+
+    /**
+     * Get the amount of lines
+     *
+     * @since   0.5.0
+     */
+    public int getLineCount() {
+        return this.lines.size();
+    }
+
+    /**
+     * Get the amount of pages needed for the given lines
+     *
+     * @param   lines            The lines to paginate
+     * @param   lines_per_page   The amount of lines on each page
+     *
+     * @since   0.5.0
+     */
+    public static int getPageCount(List<String> lines, int lines_per_page) {
+
+        if (lines_per_page <= 0 || lines.isEmpty()) {
+            return 1;
+        }
+
+        return (lines.size() + lines_per_page - 1) / lines_per_page;
+    }
+
+    /**
+     * Get the lines of the given page (without copying them)
+     *
+     * @param   lines            The lines to paginate
+     * @param   page             The zero-based page index
+     * @param   lines_per_page   The amount of lines on each page
+     *
+     * @since   0.5.0
+     */
+    public static List<String> getPage(List<String> lines, int page, int lines_per_page) {
+
+        if (lines_per_page <= 0) {
+            return lines;
+        }
+
+        int start = Math.max(0, page) * lines_per_page;
+
+        if (start >= lines.size()) {
+            return Collections.emptyList();
+        }
+
+        return lines.subList(start, Math.min(lines.size(), start + lines_per_page));
+    }
+
+    /**
+     * Get the lines of the given page of this layout
+     *
+     * @since   0.5.0
+     */
+    public List<String> getPage(int page, int lines_per_page) {
+        return getPage(this.lines, page, lines_per_page);
+    }
+
+    /**
+     * Get the amount of pages of this layout
+     *
+     * @since   0.5.0
+     */
+    public int getPageCount(int lines_per_page) {
+        return getPageCount(this.lines, lines_per_page);
+    }
+
+    /**
+     * The cache key
+     *
+     * @since   0.5.0
+     */
+    private static class Key {
+
+        private final String text;
+        private final int width;
+        private final LineHeightFontCollection collection;
+        private final int hash;
+
+        private Key(String text, int width, LineHeightFontCollection collection) {
+            this.text = text;
+            this.width = width;
+            this.collection = collection;
+            this.hash = (text.hashCode() * 31 + width) * 31 + System.identityHashCode(collection);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key other)) {
+                return false;
+            }
+
+            return this.width == other.width && this.collection == other.collection && this.text.equals(other.text);
+        }
+    }
+}
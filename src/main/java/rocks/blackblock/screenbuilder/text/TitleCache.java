@@ -0,0 +1,404 @@
+package rocks.blackblock.screenbuilder.text;
+
+import net.minecraft.text.PlainTextContent;
+import net.minecraft.text.Text;
+import net.minecraft.text.TextContent;
+import rocks.blackblock.bib.util.BibLog;
+import rocks.blackblock.bib.util.BibText;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, content-keyed cache of built titles.
+ * Players opening identical screens will share the same Text instance
+ * (and its serialized JSON form), which also makes comparing titles cheap.
+ *
+ * Texts returned by this cache are shared and should not be modified.
+ *
+ * @author  Jelle De Loecker   <jelle@elevenways.be>
+ * @since   0.5.0
+ */
+public class TitleCache implements BibLog.Argable {
+
+    // The shared title cache
+    public static final TitleCache SHARED = new TitleCache(8 * 1024 * 1024);
+
+    // The estimated overhead of a single Text node in bytes
+    private static final int NODE_OVERHEAD = 96;
+
+    // The estimated overhead of a String in bytes
+    private static final int STRING_OVERHEAD = 40;
+
+    // The cached entries, least recently used first
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    // The maximum estimated size of all the entries
+    private long max_bytes;
+
+    // The current estimated size of all the entries
+    private long used_bytes = 0;
+
+    // Statistics
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Create a new cache
+     *
+     * @param   max_bytes   The maximum estimated memory use (0 disables the cache)
+     *
+     * @since   0.5.0
+     */
+    public TitleCache(long max_bytes) {
+        this.max_bytes = max_bytes;
+    }
+
+    /**
+     * Set the maximum estimated memory use
+     *
+     * @since   0.5.0
+     */
+    public synchronized void setMaxBytes(long max_bytes) {
+        this.max_bytes = max_bytes;
+        this.evict();
+    }
+
+    /**
+     * Get the maximum estimated memory use
+     *
+     * @since   0.5.0
+     */
+    public synchronized long getMaxBytes() {
+        return this.max_bytes;
+    }
+
+    /**
+     * Return the cached instance of an identical title,
+     * or store & return the given one
+     *
+     * @param   title   The freshly built title
+     *
+     * @since   0.5.0
+     */
+    public Text intern(Text title) {
+        return this.getEntry(title).title;
+    }
+
+    /**
+     * Return the cached instance of an identical title,
+     * or store & return the given one together with its already serialized JSON
+     *
+     * @param   title   The freshly built title
+     * @param   json    The serialized JSON of the title, if it is known
+     *
+     * @since   0.5.0
+     */
+    public Text intern(Text title, String json) {
+
+        Entry entry = this.getEntry(title);
+
+        if (json != null && entry.json == null) {
+            this.storeJson(entry, json);
+        }
+
+        return entry.title;
+    }
+
+    /**
+     * Get the serialized JSON of the given title,
+     * which is only calculated once for identical titles
+     *
+     * @param   title   The title to serialize
+     *
+     * @since   0.5.0
+     */
+    public String getJson(Text title) {
+
+        Entry entry = this.getEntry(title);
+        String json = entry.json;
+
+        if (json == null) {
+            json = this.storeJson(entry, BibText.serializeToJson(entry.title).toString());
+        }
+
+        return json;
+    }
+
+    /**
+     * Get the serialized JSON of the given title without storing it.
+     * The cached JSON is used when an identical title is already known,
+     * but unknown titles are not added to the cache
+     *
+     * @param   title   The title to serialize
+     *
+     * @since   0.5.0
+     */
+    public String peekJson(Text title) {
+
+        Entry entry;
+
+        synchronized (this) {
+            entry = this.entries.get(new Key(title));
+        }
+
+        if (entry == null) {
+            return BibText.serializeToJson(title).toString();
+        }
+
+        String json = entry.json;
+
+        if (json == null) {
+            json = this.storeJson(entry, BibText.serializeToJson(entry.title).toString());
+        }
+
+        return json;
+    }
+
+    /**
+     * Store the serialized JSON of the given entry
+     * and count it towards the memory use
+     *
+     * @return   The JSON to use (another thread might have stored it first)
+     *
+     * @since   0.5.0
+     */
+    private synchronized String storeJson(Entry entry, String json) {
+
+        if (entry.json != null) {
+            return entry.json;
+        }
+
+        entry.json = json;
+
+        long added = STRING_OVERHEAD + json.length() * 2L;
+        entry.bytes += added;
+
+        if (entry.stored) {
+            this.used_bytes += added;
+            this.evict();
+        }
+
+        return json;
+    }
+
+    /**
+     * Get the entry of the given title
+     *
+     * @since   0.5.0
+     */
+    private synchronized Entry getEntry(Text title) {
+
+        Key key = new Key(title);
+        Entry entry = this.entries.get(key);
+
+        if (entry != null) {
+            this.hits++;
+            return entry;
+        }
+
+        this.misses++;
+        entry = new Entry(title, estimateBytes(title));
+
+        // Titles that would never fit are not stored at all
+        if (entry.bytes > this.max_bytes) {
+            return entry;
+        }
+
+        this.entries.put(key, entry);
+        entry.stored = true;
+        this.used_bytes += entry.bytes;
+        this.evict();
+
+        return entry;
+    }
+
+    /**
+     * Remove the least recently used entries until it fits again
+     *
+     * @since   0.5.0
+     */
+    private void evict() {
+
+        Iterator<Entry> iterator = this.entries.values().iterator();
+
+        while (this.used_bytes > this.max_bytes && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            iterator.remove();
+            entry.stored = false;
+            this.used_bytes -= entry.bytes;
+            this.evictions++;
+        }
+    }
+
+    /**
+     * Remove all the entries
+     *
+     * @since   0.5.0
+     */
+    public synchronized void clear() {
+
+        for (Entry entry : this.entries.values()) {
+            entry.stored = false;
+        }
+
+        this.entries.clear();
+        this.used_bytes = 0;
+    }
+
+    /**
+     * Get the amount of cache hits
+     *
+     * @since   0.5.0
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Get the amount of cache misses
+     *
+     * @since   0.5.0
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Get the amount of evicted entries
+     *
+     * @since   0.5.0
+     */
+    public synchronized long getEvictions() {
+        return this.evictions;
+    }
+
+    /**
+     * Get the amount of cached titles
+     *
+     * @since   0.5.0
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Get the current estimated memory use
+     *
+     * @since   0.5.0
+     */
+    public synchronized long getUsedBytes() {
+        return this.used_bytes;
+    }
+
+    /**
+     * Estimate the memory use of the given text
+     *
+     * @since   0.5.0
+     */
+    private static long estimateBytes(Text text) {
+
+        long result = NODE_OVERHEAD;
+        TextContent content = text.getContent();
+
+        if (content instanceof PlainTextContent plain) {
+            result += plain.string().length() * 2L;
+        }
+
+        for (Text sibling : text.getSiblings()) {
+            result += estimateBytes(sibling);
+        }
+
+        return result;
+    }
+
+    /**
+     * Create a BibLog.Arg representation
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public synchronized BibLog.Arg toBBLogArg() {
+        var result = BibLog.createArg(this);
+        result.add("size", this.entries.size());
+        result.add("used_bytes", this.used_bytes);
+        result.add("max_bytes", this.max_bytes);
+        result.add("hits", this.hits);
+        result.add("misses", this.misses);
+        result.add("evictions", this.evictions);
+        return result;
+    }
+
+    /**
+     * Return a string representation of this cache
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public String toString() {
+        return this.toBBLogArg().toString();
+    }
+
+    /**
+     * The content-based key of a title
+     * (The structural hash is only calculated once)
+     *
+     * @since   0.5.0
+     */
+    private static class Key {
+
+        private final Text title;
+        private final int hash;
+
+        private Key(Text title) {
+            this.title = title;
+            this.hash = title.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key other)) {
+                return false;
+            }
+
+            return this.hash == other.hash && this.title.equals(other.title);
+        }
+    }
+
+    /**
+     * A cached title
+     *
+     * @since   0.5.0
+     */
+    private static class Entry {
+
+        // The shared title instance
+        private final Text title;
+
+        // The estimated memory use (including the serialized form once it is known)
+        private long bytes;
+
+        // The serialized form (calculated when first requested)
+        private volatile String json = null;
+
+        // Is this entry counted in the cache's memory use?
+        private boolean stored = false;
+
+        private Entry(Text title, long bytes) {
+            this.title = title;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package rocks.blackblock.screenbuilder.text;
+
+import net.minecraft.text.PlainTextContent;
+import net.minecraft.text.Text;
+import net.minecraft.text.TextContent;
+import rocks.blackblock.bib.util.BibLog;
+import rocks.blackblock.screenbuilder.BBSB;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of how big the built titles of each screen are,
+ * and whether they fit inside the configured budget
+ *
+ * @author  Jelle De Loecker   <jelle@elevenways.be>
+ * @since   0.5.0
+ */
+public class TitleMetrics implements BibLog.Argable {
+
+    // The metrics of each screen, by ScreenBuilder name
+    private static final Map<String, TitleMetrics> METRICS = new HashMap<>();
+
+    // Should titles be measured at all?
+    public static boolean ENABLED = true;
+
+    // The maximum serialized size of a title in bytes (0 means no budget)
+    // (Titles are only serialized to measure them when there is a budget, or in debug mode)
+    public static int BUDGET_BYTES = 0;
+
+    // The name of the screen
+    private final String name;
+
+    // The amount of measured titles
+    private long builds = 0;
+
+    // The amount of titles that were over budget
+    private long over_budget = 0;
+
+    // The size of the last measured title
+    // (The byte sizes stay -1 while titles are not serialized)
+    private int last_components = 0;
+    private int last_characters = 0;
+    private int last_bytes = -1;
+
+    // The size of the biggest measured title
+    private int max_components = 0;
+    private int max_characters = 0;
+    private int max_bytes = -1;
+
+    // Has this screen gone over the budget with its images,
+    // so that they are always left out from now on?
+    private boolean skip_images = false;
+
+    // Has the over-budget warning of this screen been logged?
+    private boolean warned = false;
+
+    private TitleMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Measure the given title & record it for the given screen
+     *
+     * @param   name    The name of the ScreenBuilder
+     * @param   title   The built title
+     *
+     * @return  True if the title fits inside the budget (or there is no budget)
+     *
+     * @since   0.5.0
+     */
+    public static boolean record(String name, Text title) {
+
+        String json = null;
+
+        if (ENABLED && title != null && needsJson()) {
+            json = TitleCache.SHARED.peekJson(title);
+        }
+
+        return record(name, title, json);
+    }
+
+    /**
+     * Record the given title for the given screen
+     *
+     * @param   name    The name of the ScreenBuilder
+     * @param   title   The built title
+     * @param   json    The serialized title (null if it has not been serialized)
+     *
+     * @return  True if the title fits inside the budget (or there is no budget)
+     *
+     * @since   0.5.0
+     */
+    public static boolean record(String name, Text title, String json) {
+
+        if (!ENABLED || title == null) {
+            return true;
+        }
+
+        int[] counts = new int[2];
+        count(title, counts);
+
+        int bytes = -1;
+        boolean fits = true;
+
+        if (json != null) {
+            bytes = utf8Length(json);
+            fits = isWithinBudget(bytes);
+        }
+
+        TitleMetrics metrics = getOrCreate(name);
+
+        synchronized (metrics) {
+            metrics.builds++;
+            metrics.last_components = counts[0];
+            metrics.last_characters = counts[1];
+            metrics.last_bytes = bytes;
+            metrics.max_components = Math.max(metrics.max_components, counts[0]);
+            metrics.max_characters = Math.max(metrics.max_characters, counts[1]);
+            metrics.max_bytes = Math.max(metrics.max_bytes, bytes);
+
+            if (!fits) {
+                metrics.over_budget++;
+            }
+        }
+
+        return fits;
+    }
+
+    /**
+     * Should titles be serialized to measure them?
+     * Serializing is the expensive part, so it's only done when there is a budget,
+     * or in debug mode
+     *
+     * @since   0.5.0
+     */
+    public static boolean needsJson() {
+        return ENABLED && (BUDGET_BYTES > 0 || BBSB.DEBUG);
+    }
+
+    /**
+     * Should the images of the given screen be left out,
+     * because an earlier title went over the budget?
+     *
+     * @since   0.5.0
+     */
+    public static boolean shouldSkipImages(String name) {
+
+        if (!ENABLED || BUDGET_BYTES <= 0) {
+            return false;
+        }
+
+        TitleMetrics metrics = get(name == null ? "unknown" : name);
+
+        if (metrics == null) {
+            return false;
+        }
+
+        synchronized (metrics) {
+            return metrics.skip_images;
+        }
+    }
+
+    /**
+     * Remember that the images of the given screen have to be left out
+     *
+     * @since   0.5.0
+     */
+    public static void markSkipImages(String name) {
+
+        TitleMetrics metrics = getOrCreate(name);
+
+        synchronized (metrics) {
+            metrics.skip_images = true;
+        }
+    }
+
+    /**
+     * Remember that the over-budget warning of the given screen has been logged
+     *
+     * @return  True the first time, false if it was already logged
+     *
+     * @since   0.5.0
+     */
+    public static boolean markWarned(String name) {
+
+        TitleMetrics metrics = getOrCreate(name);
+
+        synchronized (metrics) {
+
+            if (metrics.warned) {
+                return false;
+            }
+
+            metrics.warned = true;
+            return true;
+        }
+    }
+
+    /**
+     * Forget which screens went over the budget,
+     * so they try to include their images again.
+     * (Should be called after changing the budget)
+     *
+     * @since   0.5.0
+     */
+    public static void forgetOverBudget() {
+        for (TitleMetrics metrics : getAll()) {
+            synchronized (metrics) {
+                metrics.skip_images = false;
+                metrics.warned = false;
+            }
+        }
+    }
+
+    /**
+     * Get or create the metrics of the given screen
+     *
+     * @since   0.5.0
+     */
+    private static TitleMetrics getOrCreate(String name) {
+
+        if (name == null) {
+            name = "unknown";
+        }
+
+        synchronized (METRICS) {
+            return METRICS.computeIfAbsent(name, TitleMetrics::new);
+        }
+    }
+
+    /**
+     * Does the given amount of bytes fit inside the budget?
+     *
+     * @since   0.5.0
+     */
+    public static boolean isWithinBudget(int bytes) {
+        return BUDGET_BYTES <= 0 || bytes <= BUDGET_BYTES;
+    }
+
+    /**
+     * Get the metrics of the given screen
+     *
+     * @since   0.5.0
+     */
+    public static TitleMetrics get(String name) {
+        synchronized (METRICS) {
+            return METRICS.get(name);
+        }
+    }
+
+    /**
+     * Get the metrics of all the screens
+     *
+     * @since   0.5.0
+     */
+    public static List<TitleMetrics> getAll() {
+        synchronized (METRICS) {
+            return new ArrayList<>(METRICS.values());
+        }
+    }
+
+    /**
+     * Count the components & characters of the given text
+     *
+     * @since   0.5.0
+     */
+    private static void count(Text text, int[] counts) {
+
+        counts[0]++;
+
+        TextContent content = text.getContent();
+
+        if (content instanceof PlainTextContent plain) {
+            counts[1] += plain.string().length();
+        }
+
+        for (Text sibling : text.getSiblings()) {
+            count(sibling, counts);
+        }
+    }
+
+    /**
+     * Get the UTF-8 encoded length of the given string without encoding it
+     *
+     * @since   0.5.0
+     */
+    private static int utf8Length(String str) {
+
+        int result = 0;
+        int length = str.length();
+
+        for (int i = 0; i < length; i++) {
+            char character = str.charAt(i);
+
+            if (character < 0x80) {
+                result++;
+            } else if (character < 0x800) {
+                result += 2;
+            } else if (Character.isHighSurrogate(character)) {
+                result += 4;
+                i++;
+            } else {
+                result += 3;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the name of the screen
+     *
+     * @since   0.5.0
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Get the serialized size of the last title
+     * (-1 if titles are not being serialized)
+     *
+     * @since   0.5.0
+     */
+    public synchronized int getLastBytes() {
+        return this.last_bytes;
+    }
+
+    /**
+     * Get the serialized size of the biggest title
+     * (-1 if titles are not being serialized)
+     *
+     * @since   0.5.0
+     */
+    public synchronized int getMaxBytes() {
+        return this.max_bytes;
+    }
+
+    /**
+     * Get the amount of titles that were over budget
+     *
+     * @since   0.5.0
+     */
+    public synchronized long getOverBudgetCount() {
+        return this.over_budget;
+    }
+
+    /**
+     * Create a BibLog.Arg representation
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public synchronized BibLog.Arg toBBLogArg() {
+        var result = BibLog.createArg(this);
+        result.add("name", this.name);
+        result.add("builds", this.builds);
+        result.add("over_budget", this.over_budget);
+        result.add("last_components", this.last_components);
+        result.add("last_characters", this.last_characters);
+        result.add("last_bytes", this.last_bytes);
+        result.add("max_components", this.max_components);
+        result.add("max_characters", this.max_characters);
+        result.add("max_bytes", this.max_bytes);
+        result.add("skip_images", this.skip_images);
+        return result;
+    }
+
+    /**
+     * Return a string representation of these metrics
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public String toString() {
+        return this.toBBLogArg().toString();
+    }
+}
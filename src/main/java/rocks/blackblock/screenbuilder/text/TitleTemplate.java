@@ -0,0 +1,86 @@
+package rocks.blackblock.screenbuilder.text;
+
+import net.minecraft.text.Text;
+import net.minecraft.text.TextColor;
+import net.minecraft.util.Identifier;
+
+import java.util.List;
+
+/**
+ * The pre-built, static start of a title.
+ * It holds the already-built Text parts and the state the
+ * TextBuilder was in afterwards, so it can be applied to a new
+ * TextBuilder without walking the textures again.
+ *
+ * Instances are immutable and shared between all players.
+ *
+ * @author  Jelle De Loecker   <jelle@elevenways.be>
+ * @since   0.5.0
+ */
+public class TitleTemplate {
+
+    // The pre-built parts
+    final List<Text> parts;
+
+    // The cursor position at the end of the static parts
+    final int raw_x;
+    final int raw_y;
+
+    // The origin at the end of the static parts
+    final int x_origin;
+    final int y_origin;
+    final int gui_y_origin;
+
+    // Where text & the title should start
+    final int x_text_start;
+    final Integer y_text_start;
+    final Integer x_title_center;
+
+    // The color & font that were active at the end
+    final TextColor end_color;
+    final Identifier end_font;
+
+    TitleTemplate(
+            List<Text> parts,
+            int raw_x,
+            int raw_y,
+            int x_origin,
+            int y_origin,
+            int gui_y_origin,
+            int x_text_start,
+            Integer y_text_start,
+            Integer x_title_center,
+            TextColor end_color,
+            Identifier end_font
+    ) {
+        this.parts = List.copyOf(parts);
+        this.raw_x = raw_x;
+        this.raw_y = raw_y;
+        this.x_origin = x_origin;
+        this.y_origin = y_origin;
+        this.gui_y_origin = gui_y_origin;
+        this.x_text_start = x_text_start;
+        this.y_text_start = y_text_start;
+        this.x_title_center = x_title_center;
+        this.end_color = end_color;
+        this.end_font = end_font;
+    }
+
+    /**
+     * Get the raw X position of the cursor at the end of this template
+     *
+     * @since   0.5.0
+     */
+    public int getEndCursor() {
+        return this.raw_x;
+    }
+
+    /**
+     * Get the amount of pre-built parts
+     *
+     * @since   0.5.0
+     */
+    public int getPartCount() {
+        return this.parts.size();
+    }
+}
@@ -10,18 +10,24 @@ import net.minecraft.util.DyeColor;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.ColorHelper;
 import net.minecraft.util.math.MathHelper;
+import org.jetbrains.annotations.Nullable;
 import rocks.blackblock.bib.util.BibLog;
 import rocks.blackblock.screenbuilder.BBSB;
 import rocks.blackblock.screenbuilder.ScreenBuilder;
 import rocks.blackblock.screenbuilder.text.Font;
 import rocks.blackblock.screenbuilder.text.GuiFont;
 import rocks.blackblock.screenbuilder.text.TextBuilder;
+import rocks.blackblock.screenbuilder.utils.DiskCache;
 import rocks.blackblock.screenbuilder.utils.GuiUtils;
+import rocks.blackblock.screenbuilder.utils.PngWriter;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -29,6 +35,9 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 
 /**
  * The base Texture class
@@ -39,8 +48,14 @@ import java.util.List;
  */
 public abstract class BaseTexture implements BibLog.Argable {
 
-    // All textures
-    public static final Set<BaseTexture> TEXTURES = new HashSet<>();
+    // All textures (in registration order, so the characters are always assigned in the same order)
+    public static final Set<BaseTexture> TEXTURES = new LinkedHashSet<>();
+
+    // The Y offsets that were registered before `calculateAll()`, in registration order
+    private static final List<PendingYOffset> PENDING_Y_OFFSETS = new ArrayList<>();
+
+    // Are Y offset registrations collected until `calculateAll()` is called?
+    private static boolean collect_y_offsets = true;
 
     // The max allowed width of an image
     private static final int MAX_WIDTH = 128;
@@ -81,12 +96,24 @@ public abstract class BaseTexture implements BibLog.Argable {
     // The image pieces
     private List<BufferedImage> image_pieces = null;
 
-    // The Y offsets
-    private Map<Integer, List<TexturePiece>> y_pieces = new HashMap<>();
+    // The image pieces that have been loaded in advance (on another thread)
+    private List<BufferedImage> loaded_image_pieces = null;
+
+    // The PNG encoded version of the (shared) sliced image
+    private byte[] encoded_image = null;
+
+    // The glyphs of the registered Y offsets
+    private final TexturePieceTable piece_table = new TexturePieceTable();
 
     // The colour to apply to the texture
     protected TextColor texture_colour = null;
 
+    // The GUI font style with the colour applied (made once per colour)
+    protected Style texture_style = null;
+
+    // The interned coloured variants of this texture
+    private volatile ColouredVariants coloured_variants = ColouredVariants.EMPTY;
+
     /**
      * Create the instance without registering
      *
@@ -110,14 +137,146 @@ public abstract class BaseTexture implements BibLog.Argable {
     }
 
     /**
-     * Calculate all textures
+     * Calculate all textures.
+     * The images are loaded & sliced in parallel first,
+     * then the characters are assigned in registration order.
      *
      * @since   0.1.3
+     * @version 0.5.0
      */
     public static void calculateAll() {
-        for (BaseTexture texture : TEXTURES) {
+
+        List<BaseTexture> textures = new ArrayList<>(TEXTURES);
+
+        // Let the textures register the Y offsets they need
+        for (BaseTexture texture : textures) {
             texture.calculate();
         }
+
+        collect_y_offsets = false;
+
+        YOffsetManifest manifest = YOffsetManifest.SHARED;
+        manifest.prepare(textures);
+
+        if (manifest.isPruning()) {
+            pruneYOffsets(manifest);
+        }
+
+        Set<BaseTexture> pending_textures = new LinkedHashSet<>();
+
+        for (PendingYOffset pending : PENDING_Y_OFFSETS) {
+            pending.texture.collectTexturesToLoad(pending_textures);
+        }
+
+        loadInParallel(pending_textures);
+
+        generatePendingYOffsets();
+
+        if (BBSB.DEBUG) {
+            long table_bytes = 0;
+            int offset_count = 0;
+
+            for (BaseTexture texture : textures) {
+                table_bytes += texture.piece_table.getEstimatedBytes();
+                offset_count += texture.piece_table.getOffsets().length;
+            }
+
+            BBSB.log("The piece tables of", offset_count, "Y offsets use about", table_bytes, "bytes");
+        }
+    }
+
+    /**
+     * Forget the registered Y offsets the given manifest doesn't need
+     *
+     * @since   0.5.0
+     */
+    private static void pruneYOffsets(YOffsetManifest manifest) {
+
+        int total = PENDING_Y_OFFSETS.size();
+
+        PENDING_Y_OFFSETS.removeIf(pending -> {
+
+            if (manifest.allows(pending.texture, pending.title_y)) {
+                return false;
+            }
+
+            pending.texture.piece_table.remove(pending.title_y);
+            return true;
+        });
+
+        BBSB.log("Registering", PENDING_Y_OFFSETS.size(), "of", total, "Y offsets using the manifest");
+    }
+
+    /**
+     * Load & slice the images of the given textures on a temporary pool.
+     * Textures that fail to load will simply try again when their pieces are generated.
+     *
+     * @since   0.5.0
+     */
+    private static void loadInParallel(Collection<BaseTexture> textures) {
+
+        int thread_count = Math.min(textures.size(), Runtime.getRuntime().availableProcessors());
+
+        if (thread_count < 2) {
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        ForkJoinPool pool = new ForkJoinPool(thread_count, BaseTexture::createLoaderThread, null, false);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(textures.size());
+
+        try {
+            for (BaseTexture texture : textures) {
+                tasks.add(pool.submit(texture::preloadImagePieces));
+            }
+
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        if (BBSB.DEBUG) {
+            BBSB.log("Loaded", textures.size(), "textures on", thread_count, "threads in", (System.nanoTime() - start) / 1_000_000, "ms");
+        }
+    }
+
+    /**
+     * Create a thread for the texture loading pool
+     *
+     * @since   0.5.0
+     */
+    private static ForkJoinWorkerThread createLoaderThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("bbsb-texture-loader-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+
+        // Mod resources have to be found through the mod's own classloader
+        thread.setContextClassLoader(BaseTexture.class.getClassLoader());
+
+        return thread;
+    }
+
+    /**
+     * Generate the pieces of all the Y offsets that have been registered so far,
+     * in the order they were registered in
+     *
+     * @since   0.5.0
+     */
+    private static void generatePendingYOffsets() {
+
+        if (PENDING_Y_OFFSETS.isEmpty()) {
+            return;
+        }
+
+        List<PendingYOffset> pending_offsets = new ArrayList<>(PENDING_Y_OFFSETS);
+        PENDING_Y_OFFSETS.clear();
+
+        for (PendingYOffset pending : pending_offsets) {
+            pending.texture.generateSlot(pending.title_y);
+        }
     }
 
     /**
@@ -131,9 +290,7 @@ public abstract class BaseTexture implements BibLog.Argable {
             return this;
         }
 
-        TextColor text_color = TextColor.fromRgb(colour.color);
-
-        return this.getColoured(text_color);
+        return this.getColoured(colour.color);
     }
 
     /**
@@ -160,19 +317,41 @@ public abstract class BaseTexture implements BibLog.Argable {
     }
 
     /**
-     * Get a coloured version of this texture
+     * Get a coloured version of this texture.
+     * Each colour variant is only created once and then reused,
+     * so this can be called while rendering.
      *
      * @since   0.3.1
+     * @version 0.5.0
      */
     public BaseTexture getColoured(int rgb) {
-        TextColor text_color = TextColor.fromRgb(rgb);
-        return this.getColoured(text_color);
+
+        rgb &= 0xFFFFFF;
+
+        ColouredTexture result = this.coloured_variants.get(rgb);
+
+        if (result != null) {
+            return result;
+        }
+
+        synchronized (this) {
+            ColouredVariants variants = this.coloured_variants;
+            result = variants.get(rgb);
+
+            if (result == null) {
+                result = new ColouredTexture(this, TextColor.fromRgb(rgb));
+                this.coloured_variants = variants.with(rgb, result);
+            }
+        }
+
+        return result;
     }
 
     /**
      * Get a coloured version of this texture
      *
      * @since   0.2.1
+     * @version 0.5.0
      */
     public BaseTexture getColoured(TextColor colour) {
 
@@ -180,9 +359,23 @@ public abstract class BaseTexture implements BibLog.Argable {
             return this;
         }
 
-        ColouredTexture coloured = new ColouredTexture(this);
-        coloured.texture_colour = colour;
-        return coloured;
+        return this.getColoured(colour.getRgb());
+    }
+
+    /**
+     * Set the colour to apply to this texture
+     * (and the style to print it with)
+     *
+     * @since   0.5.0
+     */
+    protected void setTextureColour(@Nullable TextColor colour) {
+        this.texture_colour = colour;
+
+        if (colour == null) {
+            this.texture_style = null;
+        } else {
+            this.texture_style = GUI_FONT.resolveStyle(Style.EMPTY.withColor(colour));
+        }
     }
 
     /**
@@ -210,27 +403,87 @@ public abstract class BaseTexture implements BibLog.Argable {
      *
      * @author  Jelle De Loecker   <jelle@elevenways.be>
      * @since   0.1.1
+     * @version 0.5.0
      *
      * @param   title_y   The Y coordinate relative to the title
      */
     public List<TexturePiece> getPieces(int title_y) {
+        this.getGeneratedSlot(title_y);
+        return this.getPieceViews(title_y);
+    }
+
+    /**
+     * Get the slot of the given Y offset in the piece table,
+     * registering & generating it when needed
+     *
+     * @since   0.5.0
+     */
+    private int getGeneratedSlot(int title_y) {
+
+        if (YOffsetManifest.MODE != YOffsetManifest.Mode.OFF) {
+            YOffsetManifest.SHARED.recordUse(this, title_y);
+        }
+
         this.registerYOffset(title_y);
-        return this.y_pieces.get(title_y);
+
+        int slot = this.piece_table.getSlot(title_y);
+
+        if (!this.piece_table.isGenerated(slot)) {
+            // It has only been registered so far: generate everything
+            // that was registered before it too, so the order stays the same
+            generatePendingYOffsets();
+        }
+
+        return slot;
+    }
+
+    /**
+     * Get the texture pieces of an already generated Y offset,
+     * without registering it or recording its use.
+     * The pieces are only views on the glyphs of this texture,
+     * they are created when they are requested.
+     *
+     * @since   0.5.0
+     *
+     * @param   title_y   The Y coordinate relative to the title
+     */
+    public List<TexturePiece> getPieceViews(int title_y) {
+
+        int slot = this.piece_table.getSlot(title_y);
+
+        if (!this.piece_table.isGenerated(slot)) {
+            return List.of();
+        }
+
+        return new PieceViewList(this, slot, title_y);
     }
 
     /**
      * Register an absolute Y offset,
-     * and generate the required texture pieces
+     * and generate the required texture pieces.
+     * (Before `calculateAll()` is called, the pieces are only generated
+     * when they're first needed)
      *
      * @author  Jelle De Loecker   <jelle@elevenways.be>
      * @since   0.1.3
+     * @version 0.5.0
      *
      * @param   title_y   The Y coordinate relative to the title
      */
     public void registerYOffset(int title_y) {
-        if (!this.y_pieces.containsKey(title_y)) {
-            this.y_pieces.put(title_y, this.generateTexturePieces(title_y));
+
+        if (this.piece_table.has(title_y)) {
+            return;
         }
+
+        this.piece_table.addSlot(title_y);
+
+        if (collect_y_offsets) {
+            PENDING_Y_OFFSETS.add(new PendingYOffset(this, title_y));
+            return;
+        }
+
+        this.generateSlot(title_y);
     }
 
     /**
@@ -260,6 +513,11 @@ public abstract class BaseTexture implements BibLog.Argable {
      */
     public List<BufferedImage> getImagePieces() {
 
+        if (this.image_pieces == null) {
+            // Textures registered earlier should get their gui number first
+            generatePendingYOffsets();
+        }
+
         if (this.image_pieces == null) {
             this.image_pieces = this.generateImagePieces();
         }
@@ -418,12 +676,19 @@ public abstract class BaseTexture implements BibLog.Argable {
 
     /**
      * Make sure all the pieces are generated
+     * (Registered Y offsets are generated by `calculateAll()` anyway)
      *
      * @since   0.1.1
+     * @version 0.5.0
      */
     public void calculate() {
-        for (Integer y : this.y_pieces.keySet()) {
-            this.getPieces(y);
+
+        if (collect_y_offsets) {
+            return;
+        }
+
+        for (int y : this.piece_table.getOffsets()) {
+            this.generateSlot(y);
         }
     }
 
@@ -443,18 +708,96 @@ public abstract class BaseTexture implements BibLog.Argable {
      * @since   0.1.1
      */
     public BufferedImage getSourceImage() throws IOException {
-        byte[] data;
-        BufferedImage source_image = null;
+        return this.decodeSourceImage(this.getSourceBytes());
+    }
+
+    /**
+     * Get the contents of the source image file
+     *
+     * @since   0.5.0
+     */
+    protected byte[] getSourceBytes() throws IOException {
+
+        InputStream stream;
 
         if (this.texture_path != null) {
-            data = getFileStream(this.texture_path).readAllBytes();
+            stream = getFileStream(this.texture_path);
         } else {
-            data = getFileStream(this.texture_identifier).readAllBytes();
+            stream = getFileStream(this.texture_identifier);
+        }
+
+        if (stream == null) {
+            throw new IOException("Texture file not found");
+        }
+
+        try (stream) {
+            return stream.readAllBytes();
+        }
+    }
+
+    /**
+     * Decode the contents of the source image file
+     *
+     * @since   0.5.0
+     */
+    protected BufferedImage decodeSourceImage(byte[] data) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Add everything (besides the source file) that changes the source image
+     * to the given cache key parts
+     *
+     * @since   0.5.0
+     */
+    protected void addCacheKeyParts(List<Object> parts) {
+        // Nothing to add by default
+    }
+
+    /**
+     * Get the key of this texture's sliced image in the disk cache
+     *
+     * @since   0.5.0
+     */
+    @Nullable
+    protected String getCacheKey(byte[] source_data) {
+
+        if (!DiskCache.ENABLED) {
+            return null;
         }
 
-        source_image = ImageIO.read(new ByteArrayInputStream(data));
+        List<Object> parts = new ArrayList<>();
+        parts.add(this.getClass().getName());
+        parts.add(source_data);
+        parts.add(this.scale);
+        parts.add(this.getPreferredAmountOfPieces());
+        parts.add(this.getMaxImagePieceWidth());
+        parts.add(PngWriter.ENABLED ? PngWriter.VERSION : 0);
+        this.addCacheKeyParts(parts);
+
+        return DiskCache.SHARED.createKey("textures", parts.toArray());
+    }
+
+    /**
+     * Get the PNG encoded version of the sliced image
+     * (it is only encoded once)
+     *
+     * @since   0.5.0
+     */
+    @Nullable
+    public synchronized byte[] getEncodedImage() {
+
+        if (this.encoded_image == null) {
+            List<BufferedImage> image_pieces = this.getImagePieces();
+
+            if (image_pieces.isEmpty()) {
+                return null;
+            }
+
+            this.encoded_image = GuiUtils.toByteArray(image_pieces.get(0), "png");
+        }
 
-        return source_image;
+        return this.encoded_image;
     }
 
     /**
@@ -471,20 +814,83 @@ public abstract class BaseTexture implements BibLog.Argable {
      * (without setting them)
      *
      * @since   0.1.1
+     * @version 0.5.0
      */
     protected List<BufferedImage> generateImagePieces() {
 
-        List<BufferedImage> image_pieces = new ArrayList<>();
-
         // Only set the gui_nr if it hasn't been assigned one yet
         if (this.gui_nr == null) {
             this.gui_nr = BaseTexture.gui_counter++;
         }
 
-        BufferedImage source_image = null;
+        List<BufferedImage> image_pieces;
+
+        synchronized (this) {
+            image_pieces = this.loaded_image_pieces;
+            this.loaded_image_pieces = null;
+        }
+
+        if (image_pieces == null) {
+            image_pieces = this.loadImagePieces();
+        }
+
+        return image_pieces;
+    }
+
+    /**
+     * Add the texture(s) whose images have to be loaded
+     * to generate the pieces of this texture
+     *
+     * @since   0.5.0
+     */
+    protected void collectTexturesToLoad(Set<BaseTexture> textures) {
+        if (this.image_pieces == null) {
+            textures.add(this);
+        }
+    }
+
+    /**
+     * Load the image pieces in advance.
+     * This only touches this texture, so it can be done on any thread.
+     *
+     * @since   0.5.0
+     */
+    protected synchronized void preloadImagePieces() {
+
+        if (this.image_pieces != null || this.loaded_image_pieces != null) {
+            return;
+        }
 
         try {
-            source_image = this.getSourceImage();
+            this.loaded_image_pieces = this.loadImagePieces();
+        } catch (Exception e) {
+            BBSB.log("Failed to load texture in advance:", this.texture_identifier, "\n" + e.getMessage());
+        }
+    }
+
+    /**
+     * Load the source image & slice it into pieces
+     * (This does not assign anything yet)
+     *
+     * @since   0.5.0
+     */
+    protected List<BufferedImage> loadImagePieces() {
+
+        List<BufferedImage> image_pieces = new ArrayList<>();
+
+        byte[] source_data;
+        BufferedImage source_image;
+        String cache_key;
+
+        try {
+            source_data = this.getSourceBytes();
+            cache_key = this.getCacheKey(source_data);
+
+            if (cache_key != null && this.loadCachedImagePieces(cache_key, image_pieces)) {
+                return image_pieces;
+            }
+
+            source_image = this.decodeSourceImage(source_data);
         } catch (Exception e) {
             BBSB.log("Failed to load texture file:", this.texture_identifier, "\n" + e.getMessage());
             return image_pieces;
@@ -554,32 +960,152 @@ public abstract class BaseTexture implements BibLog.Argable {
             image_pieces.add(target_image);
         }
 
+        if (cache_key != null) {
+            this.storeCachedImage(cache_key, target_image);
+        }
+
         return image_pieces;
     }
 
+    /**
+     * Try to get the sliced image from the disk cache
+     *
+     * @return   True if it was found (and the pieces have been added)
+     *
+     * @since   0.5.0
+     */
+    private boolean loadCachedImagePieces(String cache_key, List<BufferedImage> image_pieces) {
+
+        byte[] entry = DiskCache.SHARED.get(cache_key);
+
+        if (entry == null) {
+            return false;
+        }
+
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(entry))) {
+            int original_width = input.readInt();
+            int original_height = input.readInt();
+            byte[] encoded = new byte[input.readInt()];
+            input.readFully(encoded);
+
+            BufferedImage target_image = ImageIO.read(new ByteArrayInputStream(encoded));
+
+            if (target_image == null || target_image.getHeight() != original_height) {
+                return false;
+            }
+
+            this.original_width = original_width;
+            this.original_height = original_height;
+            this.height = (int) Math.floor(this.original_height / this.scale);
+            this.width = (int) Math.floor(this.original_width / this.scale);
+
+            if (target_image.getWidth() != this.getTargetImageWidth()) {
+                return false;
+            }
+
+            int pieces = this.getAmountOfPieces();
+
+            for (int i = 0; i < pieces; i++) {
+                image_pieces.add(target_image);
+            }
+
+            this.encoded_image = encoded;
+
+            return true;
+        } catch (Exception e) {
+            BBSB.log("Ignoring broken texture cache entry of", this.texture_identifier, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Store the sliced image in the disk cache
+     * (The encoded version is kept for the resource pack)
+     *
+     * @since   0.5.0
+     */
+    private void storeCachedImage(String cache_key, BufferedImage target_image) {
+
+        byte[] encoded = GuiUtils.toByteArray(target_image, "png");
+
+        if (encoded == null) {
+            return;
+        }
+
+        this.encoded_image = encoded;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(encoded.length + 12);
+
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(this.original_width);
+            output.writeInt(this.original_height);
+            output.writeInt(encoded.length);
+            output.write(encoded);
+        } catch (IOException e) {
+            return;
+        }
+
+        DiskCache.SHARED.put(cache_key, bytes.toByteArray());
+    }
+
     /**
      * Calculate all the pieces of this texture for the given Y position
-     * (without setting them)
+     * (if that hasn't happened yet)
      *
      * @since   0.1.1
+     * @version 0.5.0
      */
     protected List<TexturePiece> generateTexturePieces(int y) {
+        this.piece_table.addSlot(y);
+        this.generateSlot(y);
+        return this.getPieceViews(y);
+    }
+
+    /**
+     * Assign the glyphs of the given (registered) Y position
+     * and add them to the GUI font
+     *
+     * @since   0.5.0
+     */
+    private void generateSlot(int y) {
+
+        int slot = this.piece_table.getSlot(y);
 
-        List<BufferedImage> image_pieces = this.getImagePieces();
-        List<TexturePiece> pieces = new ArrayList<>();
+        if (slot < 0 || this.piece_table.isGenerated(slot)) {
+            return;
+        }
 
-        for (int i = 0; i < image_pieces.size(); i++) {
-            BufferedImage image = image_pieces.get(i);
-            char piece_char = GUI_FONT.getNextChar();
+        // This can generate the offsets of other textures first
+        int piece_count = this.getImagePieces().size();
 
-            TexturePiece piece = new TexturePiece(this, i, y, piece_char);
-            piece.setUsesSharedImage(true);
-            pieces.add(piece);
-            GUI_FONT.registerTexturePiece(piece);
-            piece.setImage(image);
+        if (this.piece_table.isGenerated(slot)) {
+            return;
+        }
+
+        char[] glyphs = new char[piece_count];
+
+        for (int i = 0; i < piece_count; i++) {
+            glyphs[i] = GUI_FONT.getNextChar();
+        }
+
+        this.piece_table.setGlyphs(slot, glyphs);
+        GUI_FONT.registerTextureOffset(this, y);
+    }
+
+    /**
+     * Get the width of a single piece inside the gui
+     *
+     * @since   0.5.0
+     */
+    protected int getPieceGuiWidth() {
+
+        int gui_width = this.getImagePieceWidth();
+
+        if (this.scale != 1d) {
+            gui_width = (int) Math.floor(gui_width / this.scale);
         }
 
-        return pieces;
+        return gui_width;
     }
 
     /**
@@ -688,11 +1214,14 @@ public abstract class BaseTexture implements BibLog.Argable {
         // Add the splitting '$' (1px back) and the '9' (1px forward)
         builder.insertUnsafe("9$", Font.SPACE);
 
+        int slot = this.getGeneratedSlot(title_y);
+
         if (print_single_pass) {
             int width = 0;
             int placed = 0;
+            int piece_width = this.getPieceGuiWidth();
 
-            for (TexturePiece piece : this.getPieces(title_y)) {
+            for (int i = 0; i < this.piece_table.getPieceCount(); i++) {
                 count++;
 
                 if (count > 0) {
@@ -705,15 +1234,17 @@ public abstract class BaseTexture implements BibLog.Argable {
                     break;
                 }
 
+                String glyph = String.valueOf(this.piece_table.getGlyph(slot, i));
+
                 // This also adds unsafe, without moving the cursor back
-                if (this.texture_colour != null) {
-                    GUI_FONT.addTo(builder, ""+piece.getCharacter(), Style.EMPTY.withColor(this.texture_colour));
+                if (this.texture_style != null) {
+                    GUI_FONT.addResolvedTo(builder, glyph, this.texture_style);
                 } else {
-                    GUI_FONT.addTo(builder, "" + piece.getCharacter());
+                    GUI_FONT.addTo(builder, glyph);
                 }
 
                 placed++;
-                width += piece.getGuiWidth();
+                width += piece_width;
             }
 
             if (placed > 0) {
@@ -722,8 +1253,6 @@ public abstract class BaseTexture implements BibLog.Argable {
             }
         } else {
             // We should print all the even pieces first and then go back for the uneven ones
-            Character pixel_char = null;
-            TexturePiece piece;
 
             // Because each pixel prints an invisible pixel on the right,
             // we need to print the line in 2 passes
@@ -740,17 +1269,15 @@ public abstract class BaseTexture implements BibLog.Argable {
                         continue;
                     }
 
-                    piece = this.getPieces(title_y).get(px);
-                    pixel_char = piece.getCharacter();
-                    pass_line.append(pixel_char);
+                    pass_line.append(this.piece_table.getGlyph(slot, px));
                     placed++;
                 }
 
                 if (placed > 0) {
 
                     // This also adds unsafe, without moving the cursor back
-                    if (this.texture_colour != null) {
-                        GUI_FONT.addTo(builder, pass_line.toString(), Style.EMPTY.withColor(this.texture_colour));
+                    if (this.texture_style != null) {
+                        GUI_FONT.addResolvedTo(builder, pass_line.toString(), this.texture_style);
                     } else {
                         GUI_FONT.addTo(builder, pass_line.toString());
                     }
@@ -829,4 +1356,79 @@ public abstract class BaseTexture implements BibLog.Argable {
         return this.toBBLogArg().toString();
     }
 
+    /**
+     * A Y offset that was registered before `calculateAll()`
+     *
+     * @since   0.5.0
+     */
+    private record PendingYOffset(BaseTexture texture, int title_y) {}
+
+    /**
+     * The pieces of a generated Y offset,
+     * as views on the glyphs in the piece table
+     *
+     * @since   0.5.0
+     */
+    private static class PieceViewList extends AbstractList<TexturePiece> implements RandomAccess {
+
+        private final BaseTexture texture;
+        private final int slot;
+        private final int title_y;
+
+        private PieceViewList(BaseTexture texture, int slot, int title_y) {
+            this.texture = texture;
+            this.slot = slot;
+            this.title_y = title_y;
+        }
+
+        @Override
+        public TexturePiece get(int index) {
+            Objects.checkIndex(index, this.size());
+
+            TexturePiece piece = new TexturePiece(this.texture, index, this.title_y, this.texture.piece_table.getGlyph(this.slot, index));
+            piece.setUsesSharedImage(true);
+
+            return piece;
+        }
+
+        @Override
+        public int size() {
+            return this.texture.piece_table.getPieceCount();
+        }
+    }
+
+    /**
+     * The coloured variants of a texture, keyed by RGB.
+     * Textures only have a handful of them, so they are simply scanned.
+     * Instances are never modified: adding one creates a new instance.
+     *
+     * @since   0.5.0
+     */
+    private record ColouredVariants(int[] rgbs, ColouredTexture[] textures) {
+
+        private static final ColouredVariants EMPTY = new ColouredVariants(new int[0], new ColouredTexture[0]);
+
+        @Nullable
+        private ColouredTexture get(int rgb) {
+
+            for (int i = 0; i < this.rgbs.length; i++) {
+                if (this.rgbs[i] == rgb) {
+                    return this.textures[i];
+                }
+            }
+
+            return null;
+        }
+
+        private ColouredVariants with(int rgb, ColouredTexture texture) {
+            int count = this.rgbs.length;
+
+            int[] rgbs = Arrays.copyOf(this.rgbs, count + 1);
+            ColouredTexture[] textures = Arrays.copyOf(this.textures, count + 1);
+            rgbs[count] = rgb;
+            textures[count] = texture;
+
+            return new ColouredVariants(rgbs, textures);
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package rocks.blackblock.screenbuilder.textures;
 
+import net.minecraft.text.Style;
 import net.minecraft.text.TextColor;
 import net.minecraft.util.Identifier;
 import rocks.blackblock.screenbuilder.ScreenBuilder;
@@ -25,6 +26,12 @@ public class ColouredTexture extends BaseTexture {
     // Parent's original colour
     private TextColor original_parent_color = null;
 
+    // Parent's original style
+    private Style original_parent_style = null;
+
+    // Is the colour currently applied to the parent?
+    private boolean applied = false;
+
     /**
      * Create the instance
      *
@@ -35,6 +42,28 @@ public class ColouredTexture extends BaseTexture {
         this.parent = parent;
     }
 
+    /**
+     * Create the instance with the given colour
+     * (Use BaseTexture#getColoured() to get a shared instance)
+     *
+     * @since   0.5.0
+     */
+    public ColouredTexture(BaseTexture parent, TextColor colour) {
+        this(parent);
+        this.setTextureColour(colour);
+    }
+
+    /**
+     * Get a coloured version of the parent texture
+     * (The new colour replaces this one)
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public BaseTexture getColoured(int rgb) {
+        return this.parent.getColoured(rgb);
+    }
+
     @Override
     public List<TexturePiece> getPieces() {
         return this.parent.getPieces();
@@ -45,6 +74,11 @@ public class ColouredTexture extends BaseTexture {
         return this.parent.getPieces(title_y);
     }
 
+    @Override
+    public List<TexturePiece> getPieceViews(int title_y) {
+        return this.parent.getPieceViews(title_y);
+    }
+
     @Override
     public void registerYOffset(int title_y) {
         this.parent.registerYOffset(title_y);
@@ -205,12 +239,15 @@ public class ColouredTexture extends BaseTexture {
             return;
         }
 
-        if (this.original_parent_color != null) {
+        if (this.applied) {
             return;
         }
 
+        this.applied = true;
         this.original_parent_color = this.parent.texture_colour;
+        this.original_parent_style = this.parent.texture_style;
         this.parent.texture_colour = this.texture_colour;
+        this.parent.texture_style = this.texture_style;
     }
 
     /**
@@ -218,15 +255,19 @@ public class ColouredTexture extends BaseTexture {
      *
      * @author  Jelle De Loecker   <jelle@elevenways.be>
      * @since   0.2.1
+     * @version 0.5.0
      */
     private void resetParentColour() {
 
-        if (this.texture_colour == null) {
+        if (!this.applied) {
             return;
         }
 
         this.parent.texture_colour = this.original_parent_color;
+        this.parent.texture_style = this.original_parent_style;
         this.original_parent_color = null;
+        this.original_parent_style = null;
+        this.applied = false;
     }
 
     /**
@@ -107,12 +107,20 @@ public class GuiTexture extends BaseTexture {
 
     /**
      * Calculate all the pieces
+     * (Before `calculateAll()` is called, this only registers them)
      *
      * @since   0.1.3
+     * @version 0.5.0
      */
     @Override
     public void calculate() {
-        this.getPieces();
+
+        if (this.original != null) {
+            this.original.calculate();
+            return;
+        }
+
+        this.registerYOffset(0);
     }
 
     /**
@@ -564,18 +572,38 @@ public class GuiTexture extends BaseTexture {
 
     }
 
+    /**
+     * The highlighted slots change the source image,
+     * so they're part of the cache key
+     *
+     * @since   0.5.0
+     */
+    @Override
+    protected void addCacheKeyParts(List<Object> parts) {
+
+        parts.add(this.getOriginalX());
+        parts.add(this.getOriginalY());
+
+        Map<Integer, ScreenInfo.Coordinates> slot_coordinates = new TreeMap<>(this.getSlotCoordinatesToHighlight());
+
+        slot_coordinates.forEach((index, coords) -> {
+            parts.add(index + ":" + coords.x + "," + coords.y);
+        });
+    }
+
     /**
      * Get the source image.
      * We'll modify the source image first to make the used slots light up when hovering over them.
      * (This is only needed for FontTextures, not for Guis using item textures)
      *
      * @since   0.1.1
+     * @version 0.5.0
      */
     @Override
-    public BufferedImage getSourceImage() throws IOException {
+    protected BufferedImage decodeSourceImage(byte[] data) throws IOException {
 
         // Get the actual source image
-        BufferedImage source_image = super.getSourceImage();
+        BufferedImage source_image = super.decodeSourceImage(data);
 
         Map<Integer, ScreenInfo.Coordinates> slot_coordinates = this.getSlotCoordinatesToHighlight();
 
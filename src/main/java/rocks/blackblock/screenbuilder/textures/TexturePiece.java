@@ -1,9 +1,20 @@
 package rocks.blackblock.screenbuilder.textures;
 
 import net.minecraft.util.Identifier;
+import rocks.blackblock.screenbuilder.utils.GuiUtils;
 
 import java.awt.image.BufferedImage;
-
+import java.util.List;
+
+/**
+ * A piece of a texture at a certain Y offset.
+ * The pieces of registered textures are not stored anymore:
+ * they are lightweight views on the texture's glyph table.
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.1.1
+ * @version  0.5.0
+ */
 public class TexturePiece {
 
     private final BaseTexture parent;
@@ -11,7 +22,6 @@ public class TexturePiece {
     private final char character;
     private BufferedImage image = null;
     private boolean uses_shared_image = false;
-    private int width = 0;
     private int y_offset = 0;
 
     public TexturePiece(BaseTexture parent, int index, int y_offset, char character) {
@@ -77,13 +87,49 @@ public class TexturePiece {
 
     /**
      * Get the image of this piece
+     * (Pieces using a shared image get it from their texture)
      *
      * @since   0.1.1
+     * @version 0.5.0
      */
     public BufferedImage getImage() {
+
+        if (this.image == null && this.uses_shared_image && this.parent != null) {
+            List<BufferedImage> image_pieces = this.parent.getImagePieces();
+
+            if (this.index < image_pieces.size()) {
+                return image_pieces.get(this.index);
+            }
+        }
+
         return this.image;
     }
 
+    /**
+     * Get the PNG encoded image of this piece
+     * (Shared images are only encoded once, or come from the disk cache)
+     *
+     * @since   0.5.0
+     */
+    public byte[] getEncodedImage() {
+
+        if (this.uses_shared_image && this.parent != null) {
+            byte[] result = this.parent.getEncodedImage();
+
+            if (result != null) {
+                return result;
+            }
+        }
+
+        BufferedImage image = this.getImage();
+
+        if (image == null) {
+            return null;
+        }
+
+        return GuiUtils.toByteArray(image, "png");
+    }
+
     /**
      * Get the path to the file of this piece
      *
@@ -159,11 +205,13 @@ public class TexturePiece {
      */
     public int getImageHeight() {
 
-        if (this.image == null) {
+        BufferedImage image = this.getImage();
+
+        if (image == null) {
             return 0;
         }
 
-        return this.image.getHeight();
+        return image.getHeight();
     }
 
     /**
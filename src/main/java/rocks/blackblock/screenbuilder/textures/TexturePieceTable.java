@@ -0,0 +1,199 @@
+package rocks.blackblock.screenbuilder.textures;
+
+import java.util.Arrays;
+
+/**
+ * The glyphs of all the registered Y offsets of a texture,
+ * stored in a few flat arrays instead of a map of lists of pieces.
+ *
+ * Each registered Y offset gets a slot, and each slot holds the glyph
+ * of every piece: `glyphs[slot * piece_count + piece_index]`.
+ * A glyph of 0 means the slot has not been generated yet
+ * (the GUI font never hands out that character).
+ *
+ * @author  Jelle De Loecker   <jelle@elevenways.be>
+ * @since   0.5.0
+ */
+class TexturePieceTable {
+
+    // The registered Y offsets (sorted)
+    private int[] offsets = new int[0];
+
+    // The slot of each Y offset (in the same order)
+    private int[] slots = new int[0];
+
+    // The amount of slots that have been handed out
+    private int slot_count = 0;
+
+    // The amount of pieces per slot (-1 until the first slot is generated)
+    private int piece_count = -1;
+
+    // The glyphs of all slots
+    private char[] glyphs = new char[0];
+
+    /**
+     * Get the slot of the given Y offset
+     *
+     * @return   The slot, or -1 if the offset has not been registered
+     *
+     * @since   0.5.0
+     */
+    int getSlot(int y) {
+        int index = Arrays.binarySearch(this.offsets, y);
+
+        if (index < 0) {
+            return -1;
+        }
+
+        return this.slots[index];
+    }
+
+    /**
+     * Is the given Y offset registered?
+     *
+     * @since   0.5.0
+     */
+    boolean has(int y) {
+        return Arrays.binarySearch(this.offsets, y) >= 0;
+    }
+
+    /**
+     * Register the given Y offset
+     *
+     * @return   The slot of the offset
+     *
+     * @since   0.5.0
+     */
+    int addSlot(int y) {
+        int index = Arrays.binarySearch(this.offsets, y);
+
+        if (index >= 0) {
+            return this.slots[index];
+        }
+
+        int insertion = -index - 1;
+        int length = this.offsets.length;
+        int slot = this.slot_count++;
+
+        int[] offsets = new int[length + 1];
+        int[] slots = new int[length + 1];
+
+        System.arraycopy(this.offsets, 0, offsets, 0, insertion);
+        System.arraycopy(this.slots, 0, slots, 0, insertion);
+        offsets[insertion] = y;
+        slots[insertion] = slot;
+        System.arraycopy(this.offsets, insertion, offsets, insertion + 1, length - insertion);
+        System.arraycopy(this.slots, insertion, slots, insertion + 1, length - insertion);
+
+        this.offsets = offsets;
+        this.slots = slots;
+
+        return slot;
+    }
+
+    /**
+     * Forget the given Y offset
+     * (Its slot is not reused)
+     *
+     * @since   0.5.0
+     */
+    void remove(int y) {
+        int index = Arrays.binarySearch(this.offsets, y);
+
+        if (index < 0) {
+            return;
+        }
+
+        int length = this.offsets.length;
+
+        int[] offsets = new int[length - 1];
+        int[] slots = new int[length - 1];
+
+        System.arraycopy(this.offsets, 0, offsets, 0, index);
+        System.arraycopy(this.slots, 0, slots, 0, index);
+        System.arraycopy(this.offsets, index + 1, offsets, index, length - index - 1);
+        System.arraycopy(this.slots, index + 1, slots, index, length - index - 1);
+
+        this.offsets = offsets;
+        this.slots = slots;
+    }
+
+    /**
+     * Get a copy of the registered Y offsets (sorted)
+     *
+     * @since   0.5.0
+     */
+    int[] getOffsets() {
+        return this.offsets.clone();
+    }
+
+    /**
+     * Get the amount of pieces per slot
+     * (-1 if nothing has been generated yet)
+     *
+     * @since   0.5.0
+     */
+    int getPieceCount() {
+        return this.piece_count;
+    }
+
+    /**
+     * Have the glyphs of the given slot been generated?
+     *
+     * @since   0.5.0
+     */
+    boolean isGenerated(int slot) {
+
+        if (slot < 0 || this.piece_count < 0) {
+            return false;
+        }
+
+        // Textures without pieces are generated as soon as their piece count is known
+        if (this.piece_count == 0) {
+            return true;
+        }
+
+        int index = slot * this.piece_count;
+        return index < this.glyphs.length && this.glyphs[index] != 0;
+    }
+
+    /**
+     * Set the glyphs of the given slot
+     *
+     * @since   0.5.0
+     */
+    void setGlyphs(int slot, char[] glyphs) {
+
+        if (this.piece_count < 0) {
+            this.piece_count = glyphs.length;
+        } else if (this.piece_count != glyphs.length) {
+            throw new IllegalStateException("Expected " + this.piece_count + " glyphs, but got " + glyphs.length);
+        }
+
+        int end = (slot + 1) * this.piece_count;
+
+        if (end > this.glyphs.length) {
+            this.glyphs = Arrays.copyOf(this.glyphs, Math.max(end, this.glyphs.length * 2));
+        }
+
+        System.arraycopy(glyphs, 0, this.glyphs, slot * this.piece_count, this.piece_count);
+    }
+
+    /**
+     * Get the glyph of the given piece in the given slot
+     *
+     * @since   0.5.0
+     */
+    char getGlyph(int slot, int piece_index) {
+        return this.glyphs[slot * this.piece_count + piece_index];
+    }
+
+    /**
+     * Get the estimated memory use of this table
+     *
+     * @since   0.5.0
+     */
+    long getEstimatedBytes() {
+        return 16 + 3 * 4L + 3 * 16L + this.offsets.length * 8L + this.glyphs.length * 2L;
+    }
+}
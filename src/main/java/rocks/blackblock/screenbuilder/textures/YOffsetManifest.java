@@ -0,0 +1,442 @@
+package rocks.blackblock.screenbuilder.textures;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import net.fabricmc.loader.api.FabricLoader;
+import org.jetbrains.annotations.Nullable;
+import rocks.blackblock.bib.util.BibLog;
+import rocks.blackblock.screenbuilder.BBSB;
+import rocks.blackblock.screenbuilder.utils.DiskCache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of which Y offsets of which textures are actually used,
+ * so the next startup only has to register those.
+ *
+ * Every registered Y offset uses up glyphs, texture pieces & font providers
+ * that each client has to download, while most of them are never drawn.
+ * In the RECORD mode all of them are still registered, but the offsets
+ * requested through `BaseTexture#getPieces(int)` are saved to a manifest
+ * when the server stops. The APPLY & STRICT modes then only register
+ * the offsets in that manifest (plus a small margin).
+ *
+ * Offsets that are pruned can not be drawn correctly anymore,
+ * because they're not in the resource pack. They are still recorded,
+ * so they are included again after the next restart.
+ *
+ * @author  Jelle De Loecker   <jelle@elevenways.be>
+ * @since   0.5.0
+ */
+public class YOffsetManifest implements BibLog.Argable {
+
+    // The mode to use (can also be set with the "bbsb.y_offsets" system property)
+    public static Mode MODE = Mode.fromString(System.getProperty("bbsb.y_offsets"));
+
+    // Offsets this close to a used offset are registered too
+    public static int MARGIN = 1;
+
+    // The shared manifest (in the config directory)
+    public static final YOffsetManifest SHARED = new YOffsetManifest(null);
+
+    // The file of the manifest (null until it is first needed)
+    private Path path;
+
+    // The keys of the textures that were registered when calculating
+    private Map<BaseTexture, String> texture_keys = null;
+
+    // The fingerprint of those textures
+    private String fingerprint = null;
+
+    // The used offsets of each texture, as read from the manifest (sorted)
+    private Map<String, int[]> loaded_offsets = null;
+
+    // The fingerprint in the manifest
+    private String loaded_fingerprint = null;
+
+    // Should offsets that are not in the manifest be skipped?
+    private boolean pruning = false;
+
+    // The offsets that have been used since startup
+    private final Map<BaseTexture, Set<Integer>> used_offsets = new ConcurrentHashMap<>();
+
+    // Statistics
+    private int kept_count = 0;
+    private int pruned_count = 0;
+
+    /**
+     * Create a manifest
+     *
+     * @param   path   The file to use (null for the default one)
+     *
+     * @since   0.5.0
+     */
+    public YOffsetManifest(@Nullable Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Get the file of this manifest
+     *
+     * @since   0.5.0
+     */
+    public synchronized Path getPath() {
+
+        if (this.path == null) {
+            this.path = FabricLoader.getInstance().getConfigDir().resolve(BBSB.NAMESPACE).resolve("y_offsets.json");
+        }
+
+        return this.path;
+    }
+
+    /**
+     * Set the file to use
+     *
+     * @since   0.5.0
+     */
+    public synchronized void setPath(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Get the stable key of each of the given textures:
+     * their class & identifier, and how many textures with the same ones came before
+     *
+     * @since   0.5.0
+     */
+    private static Map<BaseTexture, String> createTextureKeys(Collection<BaseTexture> textures) {
+
+        Map<BaseTexture, String> result = new LinkedHashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (BaseTexture texture : textures) {
+            String base = texture.getClass().getSimpleName() + ":" + texture.texture_identifier;
+            int count = counts.merge(base, 1, Integer::sum) - 1;
+            result.put(texture, base + "#" + count);
+        }
+
+        return result;
+    }
+
+    /**
+     * Prepare for the given textures (in registration order)
+     * and decide whether offsets should be pruned
+     *
+     * @since   0.5.0
+     */
+    public synchronized void prepare(Collection<BaseTexture> textures) {
+
+        this.texture_keys = createTextureKeys(textures);
+        this.fingerprint = DiskCache.SHARED.createKey("y_offsets", this.texture_keys.values().toArray());
+        this.pruning = false;
+
+        if (MODE == Mode.OFF) {
+            return;
+        }
+
+        this.load();
+
+        if (MODE == Mode.RECORD) {
+            BBSB.log("Recording the used Y offsets to", this.getPath());
+            return;
+        }
+
+        if (this.loaded_offsets == null) {
+            BBSB.log("There is no Y offset manifest yet, registering all Y offsets");
+            return;
+        }
+
+        boolean matches = this.fingerprint.equals(this.loaded_fingerprint);
+
+        if (!matches) {
+            if (MODE == Mode.STRICT) {
+                BBSB.log("The Y offset manifest was made for other textures, registering all Y offsets");
+                return;
+            }
+
+            BBSB.log("Warning! The Y offset manifest was made for other textures, new textures will use all their Y offsets");
+        }
+
+        this.pruning = true;
+    }
+
+    /**
+     * Are offsets that are not in the manifest skipped?
+     *
+     * @since   0.5.0
+     */
+    public synchronized boolean isPruning() {
+        return this.pruning;
+    }
+
+    /**
+     * Should the given offset of the given texture be registered?
+     *
+     * @since   0.5.0
+     */
+    public synchronized boolean allows(BaseTexture texture, int title_y) {
+
+        boolean result = this.isAllowed(texture, title_y);
+
+        if (result) {
+            this.kept_count++;
+        } else {
+            this.pruned_count++;
+        }
+
+        return result;
+    }
+
+    /**
+     * Is the given offset (or one close to it) in the manifest?
+     *
+     * @since   0.5.0
+     */
+    private boolean isAllowed(BaseTexture texture, int title_y) {
+
+        if (!this.pruning) {
+            return true;
+        }
+
+        String key = this.texture_keys.get(texture);
+
+        if (key == null) {
+            return true;
+        }
+
+        int[] offsets = this.loaded_offsets.get(key);
+
+        // Textures the manifest doesn't know about keep all their offsets
+        if (offsets == null) {
+            return true;
+        }
+
+        int index = Arrays.binarySearch(offsets, title_y);
+
+        if (index >= 0) {
+            return true;
+        }
+
+        int insertion = -index - 1;
+
+        if (insertion < offsets.length && offsets[insertion] - title_y <= MARGIN) {
+            return true;
+        }
+
+        return insertion > 0 && title_y - offsets[insertion - 1] <= MARGIN;
+    }
+
+    /**
+     * Remember that the given offset of the given texture has been used
+     *
+     * @since   0.5.0
+     */
+    public void recordUse(BaseTexture texture, int title_y) {
+        this.used_offsets.computeIfAbsent(texture, key -> ConcurrentHashMap.newKeySet()).add(title_y);
+    }
+
+    /**
+     * Read the manifest file, if there is one
+     *
+     * @since   0.5.0
+     */
+    private void load() {
+
+        this.loaded_offsets = null;
+        this.loaded_fingerprint = null;
+
+        String json;
+
+        try {
+            json = Files.readString(this.getPath(), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            BBSB.log("Failed to read the Y offset manifest:", e.getMessage());
+            return;
+        }
+
+        try {
+            JsonObject root = JsonParser.parseString(json).getAsJsonObject();
+            Map<String, int[]> offsets = new HashMap<>();
+
+            for (Map.Entry<String, JsonElement> entry : root.getAsJsonObject("textures").entrySet()) {
+                JsonArray values = entry.getValue().getAsJsonArray();
+                int[] result = new int[values.size()];
+
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = values.get(i).getAsInt();
+                }
+
+                Arrays.sort(result);
+                offsets.put(entry.getKey(), result);
+            }
+
+            this.loaded_fingerprint = root.get("fingerprint").getAsString();
+            this.loaded_offsets = offsets;
+        } catch (Exception e) {
+            BBSB.log("Failed to parse the Y offset manifest:", e.getMessage());
+        }
+    }
+
+    /**
+     * Write the used offsets to the manifest file,
+     * together with the offsets that were already in it
+     *
+     * @since   0.5.0
+     */
+    public synchronized void save() {
+
+        if (MODE == Mode.OFF || this.texture_keys == null) {
+            return;
+        }
+
+        Map<String, TreeSet<Integer>> offsets = new TreeMap<>();
+
+        // Every known texture is added, even unused ones,
+        // so they can be told apart from new textures
+        for (String key : this.texture_keys.values()) {
+            TreeSet<Integer> values = new TreeSet<>();
+
+            if (this.loaded_offsets != null && this.loaded_offsets.containsKey(key)) {
+                for (int value : this.loaded_offsets.get(key)) {
+                    values.add(value);
+                }
+            }
+
+            offsets.put(key, values);
+        }
+
+        for (Map.Entry<BaseTexture, Set<Integer>> entry : this.used_offsets.entrySet()) {
+            String key = this.texture_keys.get(entry.getKey());
+
+            if (key != null) {
+                offsets.get(key).addAll(entry.getValue());
+            }
+        }
+
+        JsonObject root = new JsonObject();
+        JsonObject textures = new JsonObject();
+        root.addProperty("fingerprint", this.fingerprint);
+        root.add("textures", textures);
+
+        int total = 0;
+
+        for (Map.Entry<String, TreeSet<Integer>> entry : offsets.entrySet()) {
+            JsonArray values = new JsonArray();
+
+            for (Integer value : entry.getValue()) {
+                values.add(value);
+                total++;
+            }
+
+            textures.add(entry.getKey(), values);
+        }
+
+        Path target = this.getPath();
+        Path temporary = null;
+
+        try {
+            Files.createDirectories(target.getParent());
+
+            temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            Files.writeString(temporary, new GsonBuilder().setPrettyPrinting().create().toJson(root), StandardCharsets.UTF_8);
+
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            temporary = null;
+            BBSB.log("Saved", total, "used Y offsets of", offsets.size(), "textures to", target);
+        } catch (IOException e) {
+            BBSB.log("Failed to write the Y offset manifest:", e.getMessage());
+        } finally {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a BibLog.Arg representation
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public synchronized BibLog.Arg toBBLogArg() {
+        var result = BibLog.createArg(this);
+        result.add("mode", MODE);
+        result.add("path", this.path);
+        result.add("pruning", this.pruning);
+        result.add("kept", this.kept_count);
+        result.add("pruned", this.pruned_count);
+        result.add("used_textures", this.used_offsets.size());
+        return result;
+    }
+
+    /**
+     * Return a string representation of this manifest
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public String toString() {
+        return this.toBBLogArg().toString();
+    }
+
+    /**
+     * How the manifest is used
+     *
+     * @since   0.5.0
+     */
+    public enum Mode {
+        // Register all offsets & don't record anything
+        OFF,
+
+        // Register all offsets & record the used ones
+        RECORD,
+
+        // Only register the recorded offsets
+        // (all of them if there is no manifest yet, and all of the textures it doesn't know)
+        APPLY,
+
+        // Only register the recorded offsets if the manifest was made for the exact same textures,
+        // otherwise register all of them
+        STRICT;
+
+        /**
+         * Get the mode with the given name (OFF if there is none)
+         *
+         * @since   0.5.0
+         */
+        public static Mode fromString(@Nullable String name) {
+
+            if (name == null || name.isBlank()) {
+                return OFF;
+            }
+
+            try {
+                return Mode.valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return OFF;
+            }
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package rocks.blackblock.screenbuilder.utils;
+
+import net.fabricmc.loader.api.FabricLoader;
+import org.jetbrains.annotations.Nullable;
+import rocks.blackblock.bib.util.BibLog;
+import rocks.blackblock.screenbuilder.BBSB;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * A content-addressed cache of generated resources on disk,
+ * so work whose inputs did not change can be skipped after a restart.
+ *
+ * Keys are SHA-256 hashes of everything the result depends on
+ * (always including the library version). Entries are written to a
+ * temporary file first and then moved in place, so a crash can never
+ * leave a half-written entry behind. Unreadable entries count as misses.
+ *
+ * Entries are never overwritten with new versions, they just stop being used.
+ * So the first time the cache is used after a startup, the least recently used
+ * entries are removed until the directory fits inside MAX_BYTES again.
+ *
+ * @author  Jelle De Loecker   <jelle@elevenways.be>
+ * @since   0.5.0
+ */
+public class DiskCache implements BibLog.Argable {
+
+    // Set this to false to disable the disk cache
+    public static boolean ENABLED = true;
+
+    // The maximum size of all the entries together (0 for no limit)
+    public static long MAX_BYTES = 256L * 1024 * 1024;
+
+    // Temporary files older than this were left behind by a crash
+    private static final long TEMPORARY_MAX_AGE = 60 * 60 * 1000;
+
+    // The shared cache (in the game directory)
+    public static final DiskCache SHARED = new DiskCache(null);
+
+    // The directory of the cache (null until it is first needed)
+    private Path directory;
+
+    // The version of the library, part of every key
+    private String version = null;
+
+    // Has the directory been pruned since the startup?
+    private boolean pruned = false;
+
+    // Statistics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong removals = new AtomicLong();
+
+    /**
+     * Create a cache
+     *
+     * @param   directory   The directory to use (null for the default one)
+     *
+     * @since   0.5.0
+     */
+    public DiskCache(@Nullable Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Set the directory to use
+     *
+     * @since   0.5.0
+     */
+    public synchronized void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Get the directory of this cache
+     *
+     * @since   0.5.0
+     */
+    public synchronized Path getDirectory() {
+
+        if (this.directory == null) {
+            this.directory = FabricLoader.getInstance().getGameDir().resolve("cache").resolve(BBSB.NAMESPACE);
+        }
+
+        return this.directory;
+    }
+
+    /**
+     * Get the version of the library
+     *
+     * @since   0.5.0
+     */
+    private synchronized String getVersion() {
+
+        if (this.version == null) {
+            this.version = FabricLoader.getInstance()
+                    .getModContainer(BBSB.NAMESPACE)
+                    .map(container -> container.getMetadata().getVersion().getFriendlyString())
+                    .orElse("unknown");
+        }
+
+        return this.version;
+    }
+
+    /**
+     * Create the key of an entry.
+     * Byte arrays are hashed as-is, everything else as its string value.
+     *
+     * @param   kind    The kind of entry (it is used as its folder)
+     * @param   parts   Everything the entry depends on
+     *
+     * @since   0.5.0
+     */
+    public String createKey(String kind, Object... parts) {
+
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        this.update(digest, this.getVersion());
+
+        for (Object part : parts) {
+            if (part instanceof byte[] bytes) {
+                digest.update((byte) 1);
+                digest.update(intToBytes(bytes.length));
+                digest.update(bytes);
+            } else {
+                this.update(digest, String.valueOf(part));
+            }
+        }
+
+        return kind + "/" + HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Add a length-prefixed string to the digest
+     *
+     * @since   0.5.0
+     */
+    private void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 0);
+        digest.update(intToBytes(bytes.length));
+        digest.update(bytes);
+    }
+
+    /**
+     * Get the big-endian bytes of the given int
+     *
+     * @since   0.5.0
+     */
+    private static byte[] intToBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+
+    /**
+     * Get the file of the given key
+     *
+     * @since   0.5.0
+     */
+    private Path getPath(String key) {
+        return this.getDirectory().resolve(key + ".bin");
+    }
+
+    /**
+     * Get the data of the given key
+     *
+     * @return   The data, or null if there is no (readable) entry
+     *
+     * @since   0.5.0
+     */
+    @Nullable
+    public byte[] get(String key) {
+
+        if (!ENABLED) {
+            return null;
+        }
+
+        this.ensurePruned();
+
+        Path path = this.getPath(key);
+
+        try {
+            byte[] result = Files.readAllBytes(path);
+            this.hits.incrementAndGet();
+            this.touch(path);
+            return result;
+        } catch (NoSuchFileException e) {
+            this.misses.incrementAndGet();
+        } catch (Exception e) {
+            this.misses.incrementAndGet();
+            this.failures.incrementAndGet();
+            BBSB.log("Failed to read cache entry", key, e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Store the data of the given key.
+     * Failing to do so is logged, but otherwise ignored.
+     *
+     * @since   0.5.0
+     */
+    public void put(String key, byte[] data) {
+
+        if (!ENABLED || data == null) {
+            return;
+        }
+
+        this.ensurePruned();
+
+        Path target = this.getPath(key);
+        Path temporary = null;
+
+        try {
+            Files.createDirectories(target.getParent());
+
+            temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            Files.write(temporary, data);
+
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            temporary = null;
+            this.writes.incrementAndGet();
+        } catch (IOException e) {
+            this.failures.incrementAndGet();
+            BBSB.log("Failed to write cache entry", key, e.getMessage());
+        } finally {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark the given entry as recently used,
+     * so pruning removes it last
+     *
+     * @since   0.5.0
+     */
+    private void touch(Path path) {
+
+        if (MAX_BYTES <= 0) {
+            return;
+        }
+
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Ignore, the entry will just be removed sooner
+        }
+    }
+
+    /**
+     * Prune the directory once per startup
+     *
+     * @since   0.5.0
+     */
+    private void ensurePruned() {
+
+        synchronized (this) {
+            if (this.pruned) {
+                return;
+            }
+
+            this.pruned = true;
+        }
+
+        this.prune();
+    }
+
+    /**
+     * Remove the temporary files left behind by crashes,
+     * and the least recently used entries until the directory fits inside MAX_BYTES
+     *
+     * @since   0.5.0
+     */
+    public void prune() {
+
+        Path directory = this.getDirectory();
+
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long total_bytes = 0;
+        List<StoredFile> entries = new ArrayList<>();
+
+        try (Stream<Path> stream = Files.walk(directory)) {
+            Iterator<Path> iterator = stream.iterator();
+
+            while (iterator.hasNext()) {
+                Path path = iterator.next();
+                String name = path.getFileName().toString();
+
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+                    if (!attributes.isRegularFile()) {
+                        continue;
+                    }
+
+                    long modified = attributes.lastModifiedTime().toMillis();
+
+                    if (name.endsWith(".tmp")) {
+                        if (now - modified > TEMPORARY_MAX_AGE) {
+                            Files.deleteIfExists(path);
+                        }
+                    } else if (name.endsWith(".bin")) {
+                        entries.add(new StoredFile(path, attributes.size(), modified));
+                        total_bytes += attributes.size();
+                    }
+                } catch (IOException e) {
+                    // The file was probably removed in the meantime
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            this.failures.incrementAndGet();
+            BBSB.log("Failed to prune the disk cache", directory, e.getMessage());
+            return;
+        }
+
+        if (MAX_BYTES <= 0 || total_bytes <= MAX_BYTES) {
+            return;
+        }
+
+        entries.sort(Comparator.comparingLong(StoredFile::modified));
+
+        int removed = 0;
+
+        for (StoredFile entry : entries) {
+
+            if (total_bytes <= MAX_BYTES) {
+                break;
+            }
+
+            try {
+                Files.deleteIfExists(entry.path());
+                total_bytes -= entry.size();
+                removed++;
+            } catch (IOException e) {
+                this.failures.incrementAndGet();
+            }
+        }
+
+        this.removals.addAndGet(removed);
+        BBSB.log("Removed", removed, "old disk cache entries, the cache now uses", total_bytes, "bytes");
+    }
+
+    /**
+     * Get the amount of entries that were found
+     *
+     * @since   0.5.0
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Get the amount of entries that were not found
+     *
+     * @since   0.5.0
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Create a BibLog.Arg representation
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public BibLog.Arg toBBLogArg() {
+        var result = BibLog.createArg(this);
+        result.add("directory", this.directory);
+        result.add("enabled", ENABLED);
+        result.add("hits", this.hits.get());
+        result.add("misses", this.misses.get());
+        result.add("writes", this.writes.get());
+        result.add("failures", this.failures.get());
+        result.add("removals", this.removals.get());
+        return result;
+    }
+
+    /**
+     * Return a string representation of this cache
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public String toString() {
+        return this.toBBLogArg().toString();
+    }
+
+    /**
+     * An entry found while pruning
+     *
+     * @since   0.5.0
+     */
+    private record StoredFile(Path path, long size, long modified) {}
+}
@@ -259,13 +259,24 @@ public class GuiUtils {
 
     /**
      * convert BufferedImage to byte[]
+     * (PNG images are written by the optimizing PngWriter when possible)
+     *
      * @param   bi
      * @param   format
      * @return
-     * @throws IOException
+     *
+     * @version 0.5.0
      */
     public static byte[] toByteArray(BufferedImage bi, String format) {
 
+        if (PngWriter.ENABLED && "png".equalsIgnoreCase(format)) {
+            byte[] optimized = PngWriter.write(bi);
+
+            if (optimized != null) {
+                return optimized;
+            }
+        }
+
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
         try {
@@ -279,6 +290,78 @@ public class GuiUtils {
         return bytes;
     }
 
+    /**
+     * Scale the given image down so it fits inside the given size,
+     * keeping its aspect ratio. Each resulting pixel is the (alpha-weighted)
+     * average of the pixels it covers. Images that already fit are returned as-is.
+     *
+     * @param   image        The image to scale
+     * @param   max_width    The maximum width
+     * @param   max_height   The maximum height
+     *
+     * @since   0.5.0
+     */
+    public static BufferedImage downscale(BufferedImage image, int max_width, int max_height) {
+
+        int source_width = image.getWidth();
+        int source_height = image.getHeight();
+
+        if (source_width <= max_width && source_height <= max_height) {
+            return image;
+        }
+
+        double scale = Math.min((double) max_width / source_width, (double) max_height / source_height);
+        int width = Math.max(1, (int) Math.floor(source_width * scale));
+        int height = Math.max(1, (int) Math.floor(source_height * scale));
+
+        int[] source = image.getRGB(0, 0, source_width, source_height, null, 0, source_width);
+        int[] target = new int[width * height];
+
+        for (int y = 0; y < height; y++) {
+            int start_y = y * source_height / height;
+            int end_y = Math.max(start_y + 1, (y + 1) * source_height / height);
+
+            for (int x = 0; x < width; x++) {
+                int start_x = x * source_width / width;
+                int end_x = Math.max(start_x + 1, (x + 1) * source_width / width);
+
+                long alpha = 0, red = 0, green = 0, blue = 0;
+                int count = 0;
+
+                for (int sy = start_y; sy < end_y; sy++) {
+                    int offset = sy * source_width;
+
+                    for (int sx = start_x; sx < end_x; sx++) {
+                        int argb = source[offset + sx];
+                        int pixel_alpha = argb >>> 24;
+
+                        alpha += pixel_alpha;
+                        red += ((argb >> 16) & 0xFF) * pixel_alpha;
+                        green += ((argb >> 8) & 0xFF) * pixel_alpha;
+                        blue += (argb & 0xFF) * pixel_alpha;
+                        count++;
+                    }
+                }
+
+                int argb = 0;
+
+                if (alpha > 0) {
+                    argb = (int) (alpha / count) << 24
+                            | (int) (red / alpha) << 16
+                            | (int) (green / alpha) << 8
+                            | (int) (blue / alpha);
+                }
+
+                target[y * width + x] = argb;
+            }
+        }
+
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        result.setRGB(0, 0, width, height, target, 0, width);
+
+        return result;
+    }
+
     /**
      * Send the player's inventory to the client
      *
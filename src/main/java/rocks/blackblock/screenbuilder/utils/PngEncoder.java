@@ -0,0 +1,362 @@
+package rocks.blackblock.screenbuilder.utils;
+
+import rocks.blackblock.bib.util.BibLog;
+import rocks.blackblock.screenbuilder.BBSB;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Encodes the images of the resource pack to PNG on a small pool of worker threads,
+ * so they're ready by the time the pack is written.
+ *
+ * Images with the same pixels are only encoded once while a pack is being built.
+ * The queue is bounded: when it's full, the calling thread encodes the image itself.
+ *
+ * @author  Jelle De Loecker   <jelle@elevenways.be>
+ * @since   0.5.0
+ */
+public class PngEncoder implements BibLog.Argable {
+
+    // The shared encoder
+    public static final PngEncoder SHARED = new PngEncoder(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())),
+            64
+    );
+
+    // The amount of worker threads
+    private final int thread_count;
+
+    // The maximum amount of queued jobs
+    private final int queue_size;
+
+    // The worker pool (created when first needed)
+    private ThreadPoolExecutor executor = null;
+
+    // The images that have been submitted since the last `finish()` call
+    private final Map<ImageKey, CompletableFuture<byte[]>> images = new HashMap<>();
+
+    // All jobs that have been submitted since the last `finish()` call
+    private final List<CompletableFuture<?>> jobs = new ArrayList<>();
+
+    // When the first job since the last `finish()` call was submitted
+    private long started_at = 0;
+
+    // Statistics
+    private final AtomicInteger encoded = new AtomicInteger();
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final AtomicLong encode_nanos = new AtomicLong();
+    private final AtomicLong encoded_bytes = new AtomicLong();
+
+    /**
+     * Create a new encoder
+     *
+     * @param   thread_count   The amount of worker threads
+     * @param   queue_size     The maximum amount of queued jobs
+     *
+     * @since   0.5.0
+     */
+    public PngEncoder(int thread_count, int queue_size) {
+        this.thread_count = thread_count;
+        this.queue_size = queue_size;
+    }
+
+    /**
+     * Encode the given image in the background
+     * (The pixels are read right away, so the image should not change afterwards)
+     *
+     * @since   0.5.0
+     */
+    public CompletableFuture<byte[]> encode(BufferedImage image) {
+        return this.encode(image, () -> GuiUtils.toByteArray(image, "png"));
+    }
+
+    /**
+     * Encode the given image in the background using the given encoder,
+     * unless an image with the same pixels has already been submitted.
+     * (Useful when the encoded image might already be cached somewhere else)
+     *
+     * @param   image     The image to deduplicate on
+     * @param   encoder   Creates the PNG bytes of the image
+     *
+     * @since   0.5.0
+     */
+    public CompletableFuture<byte[]> encode(BufferedImage image, Supplier<byte[]> encoder) {
+
+        if (image == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        ImageKey key = ImageKey.of(image);
+        CompletableFuture<byte[]> result;
+
+        synchronized (this) {
+            result = this.images.get(key);
+
+            if (result != null) {
+                this.duplicates.incrementAndGet();
+                return result;
+            }
+
+            result = new CompletableFuture<>();
+            this.images.put(key, result);
+            this.track(result);
+            this.encoded.incrementAndGet();
+        }
+
+        CompletableFuture<byte[]> future = result;
+
+        this.getExecutor().execute(() -> {
+            try {
+                long start = System.nanoTime();
+                byte[] bytes = encoder.get();
+                this.encode_nanos.addAndGet(System.nanoTime() - start);
+
+                if (bytes != null) {
+                    this.encoded_bytes.addAndGet(bytes.length);
+                }
+
+                future.complete(bytes);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Create the image & encode it in the background
+     *
+     * @since   0.5.0
+     */
+    public CompletableFuture<byte[]> encode(Supplier<BufferedImage> source) {
+
+        CompletableFuture<byte[]> result = this.supply(source).thenCompose(this::encode);
+
+        // The actual encoding is only submitted once the image exists
+        synchronized (this) {
+            this.track(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Create the image in the background, and encode it using the given encoder
+     * unless an image with the same pixels has already been submitted
+     *
+     * @param   source    Creates the image to deduplicate on
+     * @param   encoder   Creates the PNG bytes of the image
+     *
+     * @since   0.5.0
+     */
+    public CompletableFuture<byte[]> encode(Supplier<BufferedImage> source, Supplier<byte[]> encoder) {
+
+        CompletableFuture<byte[]> result = this.supply(source).thenCompose(image -> this.encode(image, encoder));
+
+        // The actual encoding is only submitted once the image exists
+        synchronized (this) {
+            this.track(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Run the given task in the background
+     *
+     * @since   0.5.0
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+
+        CompletableFuture<T> result = CompletableFuture.supplyAsync(task, this.getExecutor());
+
+        synchronized (this) {
+            this.track(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Remember the given job for the statistics
+     *
+     * @since   0.5.0
+     */
+    private void track(CompletableFuture<?> job) {
+
+        if (this.jobs.isEmpty()) {
+            this.started_at = System.nanoTime();
+        }
+
+        this.jobs.add(job);
+    }
+
+    /**
+     * Forget the submitted images (so they can be garbage collected)
+     * and log the statistics once all the submitted jobs are done
+     *
+     * @param   name   The name of the batch to log
+     *
+     * @since   0.5.0
+     */
+    public void finish(String name) {
+
+        List<CompletableFuture<?>> jobs;
+        long started_at;
+
+        synchronized (this) {
+            jobs = new ArrayList<>(this.jobs);
+            started_at = this.started_at;
+
+            this.jobs.clear();
+            this.images.clear();
+        }
+
+        if (jobs.isEmpty()) {
+            return;
+        }
+
+        CompletableFuture.allOf(jobs.toArray(new CompletableFuture[0])).whenComplete((result, error) -> {
+            long wall = (System.nanoTime() - started_at) / 1_000_000;
+            long busy = this.encode_nanos.getAndSet(0) / 1_000_000;
+            int encoded = this.encoded.getAndSet(0);
+            int duplicates = this.duplicates.getAndSet(0);
+            long bytes = this.encoded_bytes.getAndSet(0);
+
+            BBSB.log(name + ": encoded", encoded, "images (" + duplicates + " duplicates skipped,", bytes, "bytes) on", this.thread_count, "threads in", wall, "ms (" + busy + " ms of encoding)");
+
+            if (error != null) {
+                BBSB.log("Failed to encode some of the images:", error);
+            }
+        });
+    }
+
+    /**
+     * Get the worker pool
+     *
+     * @since   0.5.0
+     */
+    private synchronized ThreadPoolExecutor getExecutor() {
+
+        if (this.executor == null) {
+            AtomicInteger counter = new AtomicInteger();
+
+            this.executor = new ThreadPoolExecutor(
+                    this.thread_count,
+                    this.thread_count,
+                    30,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(this.queue_size),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "bbsb-png-encoder-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+
+                        // Mod resources have to be found through the mod's own classloader
+                        thread.setContextClassLoader(PngEncoder.class.getClassLoader());
+
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy()
+            );
+
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+
+        return this.executor;
+    }
+
+    /**
+     * Create a BibLog.Arg representation
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public synchronized BibLog.Arg toBBLogArg() {
+        var result = BibLog.createArg(this);
+        result.add("threads", this.thread_count);
+        result.add("queued", this.executor == null ? 0 : this.executor.getQueue().size());
+        result.add("pending_jobs", this.jobs.size());
+        result.add("images", this.images.size());
+        result.add("encoded", this.encoded.get());
+        result.add("duplicates", this.duplicates.get());
+        result.add("bytes", this.encoded_bytes.get());
+        return result;
+    }
+
+    /**
+     * Return a string representation of this encoder
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public String toString() {
+        return this.toBBLogArg().toString();
+    }
+
+    /**
+     * The content-based key of an image
+     * (The hash is only calculated once)
+     *
+     * @since   0.5.0
+     */
+    private static class ImageKey {
+
+        private final int[] pixels;
+        private final int width;
+        private final int height;
+        private final int hash;
+
+        private ImageKey(int[] pixels, int width, int height) {
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+            this.hash = (Arrays.hashCode(pixels) * 31 + width) * 31 + height;
+        }
+
+        /**
+         * Get the key of the given image
+         *
+         * @since   0.5.0
+         */
+        private static ImageKey of(BufferedImage image) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            return new ImageKey(image.getRGB(0, 0, width, height, null, 0, width), width, height);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof ImageKey other)) {
+                return false;
+            }
+
+            return this.hash == other.hash
+                    && this.width == other.width
+                    && this.height == other.height
+                    && Arrays.equals(this.pixels, other.pixels);
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package rocks.blackblock.screenbuilder.utils;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes the generated images as small PNG files.
+ *
+ * Images with at most 256 colours get a palette (at the lowest possible bit depth),
+ * the others are written as RGB when they're opaque, or RGBA when they're not.
+ * Everything is compressed at the highest level, and the row filters
+ * that give the smallest file are used.
+ *
+ * The decoded pixels are always identical to the source image:
+ * even the colour of fully transparent pixels is kept.
+ *
+ * @author  Jelle De Loecker   <jelle@elevenways.be>
+ * @since   0.5.0
+ */
+public class PngWriter {
+
+    // Should images be optimized? (Otherwise ImageIO's default writer is used)
+    public static boolean ENABLED = true;
+
+    // The version of the output (part of the disk cache keys, so entries are re-encoded when it changes)
+    public static final int VERSION = 1;
+
+    // Images with a palette only try the RGB(A) version too when they have at most this many pixels
+    // (The palette itself can be larger than the image data of tiny images)
+    public static int TRUECOLOR_TRIAL_PIXELS = 4096;
+
+    // The PNG file signature
+    private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+
+    // The colour types that are used
+    private static final int COLOUR_TYPE_RGB = 2;
+    private static final int COLOUR_TYPE_PALETTE = 3;
+    private static final int COLOUR_TYPE_RGBA = 6;
+
+    // The row filters
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+    private static final int FILTER_AVERAGE = 3;
+    private static final int FILTER_PAETH = 4;
+
+    // Pick the filter of each row with the smallest sum of absolute differences
+    private static final int FILTER_ADAPTIVE = -1;
+
+    /**
+     * Encode the given image
+     *
+     * @return   The PNG data, or null if the image can't be written without losing precision
+     *
+     * @since   0.5.0
+     */
+    @Nullable
+    public static byte[] write(BufferedImage image) {
+
+        if (image == null) {
+            return null;
+        }
+
+        // Reading the pixels as 8-bit ARGB would lose precision
+        for (int size : image.getColorModel().getComponentSize()) {
+            if (size > 8) {
+                return null;
+            }
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+        try {
+            byte[] result = null;
+            Palette palette = Palette.of(pixels);
+
+            if (palette != null) {
+                byte[][] rows = createIndexedRows(width, height, pixels, palette);
+                result = smallest(result, createFile(width, height, palette.getBitDepth(), COLOUR_TYPE_PALETTE, palette, rows, 1, FILTER_NONE));
+                result = smallest(result, createFile(width, height, palette.getBitDepth(), COLOUR_TYPE_PALETTE, palette, rows, 1, FILTER_ADAPTIVE));
+            }
+
+            if (palette == null || (long) width * height <= TRUECOLOR_TRIAL_PIXELS) {
+                boolean opaque = isOpaque(pixels);
+                int colour_type = opaque ? COLOUR_TYPE_RGB : COLOUR_TYPE_RGBA;
+                int bytes_per_pixel = opaque ? 3 : 4;
+                byte[][] rows = createTruecolourRows(width, height, pixels, bytes_per_pixel);
+                result = smallest(result, createFile(width, height, 8, colour_type, null, rows, bytes_per_pixel, FILTER_NONE));
+                result = smallest(result, createFile(width, height, 8, colour_type, null, rows, bytes_per_pixel, FILTER_ADAPTIVE));
+            }
+
+            return result;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Return the smallest of the given files
+     *
+     * @since   0.5.0
+     */
+    private static byte[] smallest(@Nullable byte[] current, byte[] candidate) {
+
+        if (current == null || candidate.length < current.length) {
+            return candidate;
+        }
+
+        return current;
+    }
+
+    /**
+     * Are all the given pixels fully opaque?
+     *
+     * @since   0.5.0
+     */
+    private static boolean isOpaque(int[] pixels) {
+
+        for (int pixel : pixels) {
+            if ((pixel >>> 24) != 0xFF) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Create the unfiltered rows of a palette image
+     *
+     * @since   0.5.0
+     */
+    private static byte[][] createIndexedRows(int width, int height, int[] pixels, Palette palette) {
+
+        int bit_depth = palette.getBitDepth();
+        int pixels_per_byte = 8 / bit_depth;
+        byte[][] rows = new byte[height][(width * bit_depth + 7) / 8];
+
+        int last_colour = pixels.length > 0 ? ~pixels[0] : 0;
+        int last_index = 0;
+
+        for (int y = 0; y < height; y++) {
+            byte[] row = rows[y];
+            int offset = y * width;
+
+            for (int x = 0; x < width; x++) {
+                int colour = pixels[offset + x];
+
+                // Neighbouring pixels often have the same colour
+                if (colour != last_colour) {
+                    last_colour = colour;
+                    last_index = palette.getIndex(colour);
+                }
+
+                int shift = 8 - bit_depth * (x % pixels_per_byte + 1);
+                row[x / pixels_per_byte] |= (byte) (last_index << shift);
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Create the unfiltered rows of an RGB or RGBA image
+     *
+     * @since   0.5.0
+     */
+    private static byte[][] createTruecolourRows(int width, int height, int[] pixels, int bytes_per_pixel) {
+
+        byte[][] rows = new byte[height][width * bytes_per_pixel];
+
+        for (int y = 0; y < height; y++) {
+            byte[] row = rows[y];
+            int offset = y * width;
+            int index = 0;
+
+            for (int x = 0; x < width; x++) {
+                int colour = pixels[offset + x];
+
+                row[index++] = (byte) (colour >>> 16);
+                row[index++] = (byte) (colour >>> 8);
+                row[index++] = (byte) colour;
+
+                if (bytes_per_pixel == 4) {
+                    row[index++] = (byte) (colour >>> 24);
+                }
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Create a complete PNG file
+     *
+     * @since   0.5.0
+     */
+    private static byte[] createFile(int width, int height, int bit_depth, int colour_type, @Nullable Palette palette, byte[][] rows, int bytes_per_pixel, int filter) throws IOException {
+
+        byte[] image_data = compressRows(rows, bytes_per_pixel, filter);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(image_data.length + 1024);
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        output.write(SIGNATURE);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream header_output = new DataOutputStream(header);
+        header_output.writeInt(width);
+        header_output.writeInt(height);
+        header_output.writeByte(bit_depth);
+        header_output.writeByte(colour_type);
+
+        // Compression method, filter method & interlace method
+        header_output.writeByte(0);
+        header_output.writeByte(0);
+        header_output.writeByte(0);
+
+        writeChunk(output, "IHDR", header.toByteArray());
+
+        if (palette != null) {
+            writeChunk(output, "PLTE", palette.getColourBytes());
+
+            if (palette.translucent_count > 0) {
+                writeChunk(output, "tRNS", palette.getAlphaBytes());
+            }
+        }
+
+        writeChunk(output, "IDAT", image_data);
+        writeChunk(output, "IEND", new byte[0]);
+
+        output.flush();
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Filter & deflate the given rows
+     *
+     * @since   0.5.0
+     */
+    private static byte[] compressRows(byte[][] rows, int bytes_per_pixel, int filter) throws IOException {
+
+        int row_length = rows.length > 0 ? rows[0].length : 0;
+        byte[] previous = new byte[row_length];
+        byte[][] filtered = new byte[5][row_length];
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DeflaterOutputStream output = new DeflaterOutputStream(bytes, deflater, 8192)) {
+            for (byte[] row : rows) {
+
+                if (filter == FILTER_NONE) {
+                    output.write(FILTER_NONE);
+                    output.write(row);
+                } else {
+                    int best_filter = FILTER_NONE;
+                    long best_sum = Long.MAX_VALUE;
+
+                    for (int type = FILTER_NONE; type <= FILTER_PAETH; type++) {
+                        long sum = filterRow(type, row, previous, bytes_per_pixel, filtered[type]);
+
+                        if (sum < best_sum) {
+                            best_sum = sum;
+                            best_filter = type;
+                        }
+                    }
+
+                    output.write(best_filter);
+                    output.write(filtered[best_filter]);
+                }
+
+                previous = row;
+            }
+        } finally {
+            deflater.end();
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Apply the given filter to a row
+     *
+     * @return   The sum of the absolute (signed) values of the filtered bytes
+     *
+     * @since   0.5.0
+     */
+    private static long filterRow(int type, byte[] row, byte[] previous, int bytes_per_pixel, byte[] target) {
+
+        long sum = 0;
+
+        for (int i = 0; i < row.length; i++) {
+            int current = row[i] & 0xFF;
+            int left = i >= bytes_per_pixel ? row[i - bytes_per_pixel] & 0xFF : 0;
+            int up = previous[i] & 0xFF;
+            int up_left = i >= bytes_per_pixel ? previous[i - bytes_per_pixel] & 0xFF : 0;
+
+            int predicted = switch (type) {
+                case FILTER_SUB -> left;
+                case FILTER_UP -> up;
+                case FILTER_AVERAGE -> (left + up) >>> 1;
+                case FILTER_PAETH -> paeth(left, up, up_left);
+                default -> 0;
+            };
+
+            byte value = (byte) (current - predicted);
+            target[i] = value;
+            sum += Math.abs(value);
+        }
+
+        return sum;
+    }
+
+    /**
+     * The Paeth predictor
+     *
+     * @since   0.5.0
+     */
+    private static int paeth(int left, int up, int up_left) {
+
+        int estimate = left + up - up_left;
+        int distance_left = Math.abs(estimate - left);
+        int distance_up = Math.abs(estimate - up);
+        int distance_up_left = Math.abs(estimate - up_left);
+
+        if (distance_left <= distance_up && distance_left <= distance_up_left) {
+            return left;
+        }
+
+        if (distance_up <= distance_up_left) {
+            return up;
+        }
+
+        return up_left;
+    }
+
+    /**
+     * Write a chunk (with its length & checksum)
+     *
+     * @since   0.5.0
+     */
+    private static void writeChunk(DataOutputStream output, String type, byte[] data) throws IOException {
+
+        byte[] type_bytes = type.getBytes(StandardCharsets.US_ASCII);
+
+        CRC32 crc = new CRC32();
+        crc.update(type_bytes);
+        crc.update(data);
+
+        output.writeInt(data.length);
+        output.write(type_bytes);
+        output.write(data);
+        output.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * The colours of a palette image.
+     * Translucent colours come first, so the transparency chunk can stop after them.
+     *
+     * @since   0.5.0
+     */
+    private static class Palette {
+
+        // The ARGB colours
+        private final int[] colours;
+
+        // The index of each colour
+        private final HashMap<Integer, Integer> indexes;
+
+        // The amount of colours that are not fully opaque
+        private final int translucent_count;
+
+        private Palette(int[] colours, HashMap<Integer, Integer> indexes, int translucent_count) {
+            this.colours = colours;
+            this.indexes = indexes;
+            this.translucent_count = translucent_count;
+        }
+
+        /**
+         * Create the palette of the given pixels
+         *
+         * @return   The palette, or null if there are more than 256 colours
+         *
+         * @since   0.5.0
+         */
+        @Nullable
+        private static Palette of(int[] pixels) {
+
+            LinkedHashSet<Integer> unique = new LinkedHashSet<>();
+            int last_colour = pixels.length > 0 ? ~pixels[0] : 0;
+
+            for (int colour : pixels) {
+
+                if (colour == last_colour) {
+                    continue;
+                }
+
+                last_colour = colour;
+
+                if (unique.add(colour) && unique.size() > 256) {
+                    return null;
+                }
+            }
+
+            int[] colours = new int[unique.size()];
+            int translucent_count = 0;
+
+            for (int colour : unique) {
+                if ((colour >>> 24) != 0xFF) {
+                    colours[translucent_count++] = colour;
+                }
+            }
+
+            int index = translucent_count;
+
+            for (int colour : unique) {
+                if ((colour >>> 24) == 0xFF) {
+                    colours[index++] = colour;
+                }
+            }
+
+            HashMap<Integer, Integer> indexes = new HashMap<>();
+
+            for (int i = 0; i < colours.length; i++) {
+                indexes.put(colours[i], i);
+            }
+
+            return new Palette(colours, indexes, translucent_count);
+        }
+
+        /**
+         * Get the index of the given colour
+         *
+         * @since   0.5.0
+         */
+        private int getIndex(int colour) {
+            return this.indexes.get(colour);
+        }
+
+        /**
+         * Get the lowest bit depth that can hold all the colours
+         *
+         * @since   0.5.0
+         */
+        private int getBitDepth() {
+
+            int count = this.colours.length;
+
+            if (count <= 2) {
+                return 1;
+            }
+
+            if (count <= 4) {
+                return 2;
+            }
+
+            if (count <= 16) {
+                return 4;
+            }
+
+            return 8;
+        }
+
+        /**
+         * Get the contents of the PLTE chunk
+         *
+         * @since   0.5.0
+         */
+        private byte[] getColourBytes() {
+
+            byte[] result = new byte[this.colours.length * 3];
+
+            for (int i = 0; i < this.colours.length; i++) {
+                int colour = this.colours[i];
+                result[i * 3] = (byte) (colour >>> 16);
+                result[i * 3 + 1] = (byte) (colour >>> 8);
+                result[i * 3 + 2] = (byte) colour;
+            }
+
+            return result;
+        }
+
+        /**
+         * Get the contents of the tRNS chunk
+         *
+         * @since   0.5.0
+         */
+        private byte[] getAlphaBytes() {
+
+            byte[] result = new byte[this.translucent_count];
+
+            for (int i = 0; i < this.translucent_count; i++) {
+                result[i] = (byte) (this.colours[i] >>> 24);
+            }
+
+            return result;
+        }
+    }
+}
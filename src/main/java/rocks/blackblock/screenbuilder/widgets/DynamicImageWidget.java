@@ -0,0 +1,450 @@
+package rocks.blackblock.screenbuilder.widgets;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import rocks.blackblock.bib.util.BibLog;
+import rocks.blackblock.screenbuilder.BBSB;
+import rocks.blackblock.screenbuilder.ScreenBuilder;
+import rocks.blackblock.screenbuilder.TexturedScreenHandler;
+import rocks.blackblock.screenbuilder.text.AsyncImageEncoder;
+import rocks.blackblock.screenbuilder.text.EncodedImage;
+import rocks.blackblock.screenbuilder.text.Font;
+import rocks.blackblock.screenbuilder.text.TextBuilder;
+import rocks.blackblock.screenbuilder.utils.GuiUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * Show an image that is only known at run-time
+ * (a player skin, a generated chart, a file on disk, ...)
+ *
+ * The image is loaded, scaled down & encoded on a worker thread,
+ * and printed using the pixel font. Nothing has to be registered
+ * in the resource pack for it.
+ *
+ * The source can be set on the widget, or be provided as its value:
+ * a BufferedImage, a Path or a KeyedSource.
+ *
+ * Encoded images are looked up by the source's key, so that key has to stay
+ * the same between builds: small images are keyed on their pixels,
+ * paths on their value, modification time & size,
+ * and suppliers & large images need a key of their own (a KeyedSource).
+ *
+ * @author   Jelle De Loecker   <jelle@elevenways.be>
+ * @since    0.5.0
+ */
+public class DynamicImageWidget extends Widget<Object> {
+
+    // The PixelFont only has fonts for this many pixel rows
+    public static final int MAX_HEIGHT = 240;
+
+    // Pixels less opaque than this are left out
+    private static final int ALPHA_THRESHOLD = 128;
+
+    // Images with more pixels than this are not hashed on the server thread,
+    // they need a KeyedSource instead
+    public static int MAX_HASHED_PIXELS = 128 * 128;
+
+    // The position of the image
+    protected int x = 0;
+    protected int y = 0;
+
+    // The maximum size of the image (it is scaled down to fit)
+    protected int max_width = 64;
+    protected int max_height = 64;
+
+    // The source of the image
+    protected Object source = null;
+
+    // How long an encoded image is used before loading it again (0 for forever)
+    protected long max_age = 0;
+
+    // The text to show while the image is loading (null for nothing)
+    protected String placeholder_text = null;
+
+    // Should fully transparent pixels be left out?
+    // (The alpha threshold already made them invisible, so this is on by default)
+    protected boolean skip_transparent_pixels = true;
+
+    // Has an unusable source or position already been logged?
+    private boolean warned = false;
+
+    /**
+     * Set the position of the image
+     *
+     * @since   0.5.0
+     */
+    public void setPosition(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Set the maximum size of the image
+     *
+     * @since   0.5.0
+     */
+    public void setMaxSize(int max_width, int max_height) {
+        this.max_width = Math.max(1, max_width);
+        this.max_height = Math.max(1, Math.min(MAX_HEIGHT, max_height));
+    }
+
+    /**
+     * Use the given image
+     *
+     * @since   0.5.0
+     */
+    public void setImage(BufferedImage image) {
+        this.source = image;
+    }
+
+    /**
+     * Use the given image, identified by the given key
+     * (Required for images with more than MAX_HASHED_PIXELS pixels)
+     *
+     * @param   key     A key that stays the same for as long as the image does
+     * @param   image   The image
+     *
+     * @since   0.5.0
+     */
+    public void setImage(Object key, BufferedImage image) {
+        this.source = new KeyedSource(key, () -> image);
+    }
+
+    /**
+     * Use the image at the given path
+     *
+     * @since   0.5.0
+     */
+    public void setImagePath(Path path) {
+        this.source = path;
+    }
+
+    /**
+     * Use the image the given supplier creates
+     * (It is called on a worker thread, and the supplier itself is used as the key)
+     *
+     * @since   0.5.0
+     */
+    public void setImageSupplier(Supplier<BufferedImage> supplier) {
+        this.source = new KeyedSource(supplier, supplier);
+    }
+
+    /**
+     * Use the image the given supplier creates
+     * (It is called on a worker thread)
+     *
+     * @param   key        A key that stays the same for as long as the image does
+     * @param   supplier   Creates the image
+     *
+     * @since   0.5.0
+     */
+    public void setImageSupplier(Object key, Supplier<BufferedImage> supplier) {
+        this.source = new KeyedSource(key, supplier);
+    }
+
+    /**
+     * Load the image again once it is older than the given amount of milliseconds
+     *
+     * @since   0.5.0
+     */
+    public void setMaxAge(long max_age) {
+        this.max_age = max_age;
+    }
+
+    /**
+     * Set the text to show while the image is loading
+     *
+     * @since   0.5.0
+     */
+    public void setPlaceholderText(@Nullable String placeholder_text) {
+        this.placeholder_text = placeholder_text;
+    }
+
+    /**
+     * Leave out the fully transparent pixels of the image
+     *
+     * @since   0.5.0
+     */
+    public void setSkipTransparentPixels(boolean skip_transparent_pixels) {
+        this.skip_transparent_pixels = skip_transparent_pixels;
+    }
+
+    /**
+     * Print the image (or the placeholder while it's loading)
+     *
+     * @since   0.5.0
+     */
+    @Override
+    public void addWithValue(TextBuilder builder, Object value) {
+
+        Object source = value != null ? value : this.source;
+
+        if (source == null) {
+            return;
+        }
+
+        int y_offset = builder.getImageYOffset(this.y);
+
+        // The pixel font only covers the first MAX_HEIGHT pixels,
+        // so the image is scaled down to fit in what is left
+        int max_height = Math.min(this.max_height, MAX_HEIGHT - y_offset);
+
+        if (y_offset < 0 || max_height <= 0) {
+            this.warn("Dynamic image at y " + y_offset + " is outside of the " + MAX_HEIGHT + " pixels the pixel font covers");
+            this.printPlaceholder(builder);
+            return;
+        }
+
+        Object key = createSourceKey(source);
+        Supplier<BufferedImage> loader = this.createLoader(source, max_height);
+
+        if (key == null || loader == null) {
+            this.warn("Unusable dynamic image source (files have to exist, suppliers & images over " + MAX_HASHED_PIXELS + " pixels need a KeyedSource): " + source);
+            return;
+        }
+
+        boolean skip_transparent = this.skip_transparent_pixels;
+
+        // Rebuild the screen once the image is ready
+        Runnable on_ready = null;
+        TexturedScreenHandler handler = builder.getScreenHandler();
+
+        if (handler != null) {
+            on_ready = new ScreenRefreshTask(handler);
+        }
+
+        EncodedImage encoded = AsyncImageEncoder.SHARED.get(
+                new SourceKey(key, this.max_width, max_height, y_offset, skip_transparent),
+                loader,
+                y_offset,
+                skip_transparent,
+                this.max_age,
+                on_ready
+        );
+
+        if (encoded != null) {
+            builder.printEncodedImage(encoded, this.x);
+        } else {
+            this.printPlaceholder(builder);
+        }
+    }
+
+    /**
+     * Log the given problem (only once per widget)
+     *
+     * @since   0.5.0
+     */
+    private void warn(String message) {
+
+        if (this.warned) {
+            return;
+        }
+
+        this.warned = true;
+        BBSB.log(message);
+    }
+
+    /**
+     * Get the key of the given source, which stays the same between builds
+     *
+     * @return   The key, or null if the source can't be keyed
+     *
+     * @since   0.5.0
+     */
+    @Nullable
+    protected static Object createSourceKey(Object source) {
+
+        if (source instanceof BufferedImage image) {
+
+            // Hashing happens on the server thread on every build,
+            // so big images have to bring their own key
+            if ((long) image.getWidth() * image.getHeight() > MAX_HASHED_PIXELS) {
+                return null;
+            }
+
+            return ContentKey.of(image);
+        }
+
+        if (source instanceof Path path) {
+            try {
+                return new PathKey(path, Files.getLastModifiedTime(path).toMillis(), Files.size(path));
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        if (source instanceof KeyedSource keyed) {
+            return keyed.key();
+        }
+
+        // Anything else (like a bare supplier) would get a new key on every build
+        return null;
+    }
+
+    /**
+     * Create the function that loads & scales the image
+     *
+     * @since   0.5.0
+     */
+    @Nullable
+    protected Supplier<BufferedImage> createLoader(Object source, int max_height) {
+
+        Supplier<BufferedImage> reader;
+
+        if (source instanceof BufferedImage image) {
+            reader = () -> image;
+        } else if (source instanceof Path path) {
+            reader = () -> {
+                try {
+                    return ImageIO.read(path.toFile());
+                } catch (Exception e) {
+                    throw new IllegalStateException("Failed to read image " + path, e);
+                }
+            };
+        } else if (source instanceof KeyedSource keyed) {
+            reader = keyed.supplier();
+        } else {
+            return null;
+        }
+
+        int max_width = this.max_width;
+
+        return () -> {
+            BufferedImage image = reader.get();
+
+            if (image == null) {
+                return null;
+            }
+
+            return applyAlphaThreshold(GuiUtils.downscale(image, max_width, max_height));
+        };
+    }
+
+    /**
+     * Make all pixels either fully transparent or fully opaque,
+     * because the pixel font can't show anything in between
+     *
+     * @since   0.5.0
+     */
+    private static BufferedImage applyAlphaThreshold(BufferedImage image) {
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+        for (int i = 0; i < pixels.length; i++) {
+            if ((pixels[i] >>> 24) < ALPHA_THRESHOLD) {
+                pixels[i] = 0;
+            } else {
+                pixels[i] |= 0xFF000000;
+            }
+        }
+
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        result.setRGB(0, 0, width, height, pixels, 0, width);
+
+        return result;
+    }
+
+    /**
+     * Print the placeholder text, if any
+     *
+     * @since   0.5.0
+     */
+    protected void printPlaceholder(TextBuilder builder) {
+
+        if (this.placeholder_text == null) {
+            return;
+        }
+
+        int y = this.y;
+        ScreenBuilder screen_builder = this.getScreenBuilder();
+
+        if (screen_builder != null) {
+            y = screen_builder.getContainerY(y);
+        }
+
+        Font font = Font.ABSOLUTE_DEFAULT_COLLECTION.getClosestFont(y);
+
+        if (font == null) {
+            font = Font.DEFAULT;
+        }
+
+        builder.setCursor(this.x);
+        builder.print(this.placeholder_text, font);
+    }
+
+    /**
+     * Append to a BibLog.Arg representation
+     *
+     * @since 0.5.0
+     */
+    @Override
+    protected void appendToBibLogArg(@NotNull BibLog.Arg arg) {
+        arg.add("x", this.x)
+                .add("y", this.y)
+                .add("max_width", this.max_width)
+                .add("max_height", this.max_height)
+                .add("source", this.source);
+    }
+
+    /**
+     * An image supplier with a key that stays the same between builds
+     *
+     * @param   key        Identifies the image (compared with equals)
+     * @param   supplier   Creates the image (called on a worker thread)
+     *
+     * @since   0.5.0
+     */
+    public record KeyedSource(Object key, Supplier<BufferedImage> supplier) {}
+
+    /**
+     * Identifies an encoded image
+     *
+     * @since   0.5.0
+     */
+    private record SourceKey(Object source, int max_width, int max_height, int y_offset, boolean skip_transparent) {}
+
+    /**
+     * Identifies an image file by its path & current contents
+     *
+     * @since   0.5.0
+     */
+    private record PathKey(Path path, long modified, long size) {}
+
+    /**
+     * Identifies an image by its pixels
+     * (So it doesn't keep the image itself alive)
+     *
+     * @since   0.5.0
+     */
+    private record ContentKey(int width, int height, long hash) {
+
+        /**
+         * Hash the pixels of the given image
+         *
+         * @since   0.5.0
+         */
+        private static ContentKey of(BufferedImage image) {
+
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+            // 64-bit FNV-1a over all pixels
+            long hash = 0xcbf29ce484222325L;
+
+            for (int pixel : pixels) {
+                hash = (hash ^ pixel) * 0x100000001b3L;
+            }
+
+            return new ContentKey(width, height, hash);
+        }
+    }
+}
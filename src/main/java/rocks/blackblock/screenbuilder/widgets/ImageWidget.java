@@ -14,6 +14,11 @@ public class ImageWidget extends TextureWidget {
         super(texture_identifier);
     }
 
+    @Override
+    public boolean isValueDependent() {
+        return false;
+    }
+
     @Override
     public void addWithValue(TextBuilder builder, Object value) {
         this.widget_texture.addToBuilder(builder, this.x, this.y);
@@ -3,6 +3,7 @@ package rocks.blackblock.screenbuilder.widgets;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NbtCompound;
+import net.minecraft.registry.RegistryKey;
 import net.minecraft.screen.slot.Slot;
 import net.minecraft.text.Style;
 import net.minecraft.util.Formatting;
@@ -15,15 +16,21 @@ import rocks.blackblock.chunker.chunk.Lump;
 import rocks.blackblock.screenbuilder.BBSB;
 import rocks.blackblock.screenbuilder.ScreenBuilder;
 import rocks.blackblock.screenbuilder.TexturedScreenHandler;
+import rocks.blackblock.screenbuilder.interfaces.MapLumpProvider;
 import rocks.blackblock.screenbuilder.interfaces.MapSlotEventListener;
 import rocks.blackblock.screenbuilder.interfaces.MapWidgetAddedListener;
 import rocks.blackblock.screenbuilder.interfaces.WidgetDataProvider;
 import rocks.blackblock.screenbuilder.slots.ButtonWidgetSlot;
 import rocks.blackblock.screenbuilder.slots.ClickType;
 import rocks.blackblock.screenbuilder.slots.ListenerWidgetSlot;
+import rocks.blackblock.screenbuilder.text.AsyncImageEncoder;
+import rocks.blackblock.screenbuilder.text.EncodedImage;
+import rocks.blackblock.screenbuilder.text.Font;
 import rocks.blackblock.screenbuilder.text.MiniText;
 import rocks.blackblock.screenbuilder.text.TextBuilder;
 
+import java.util.function.ToLongFunction;
+
 /**
  * Show a map tile
  *
@@ -32,6 +39,16 @@ import rocks.blackblock.screenbuilder.text.TextBuilder;
 @SuppressWarnings("unused")
 public class MapWidget extends TextureWidget<Lump> {
 
+    /**
+     * How long a rendered chunk image is used before it is rendered again (in milliseconds)
+     */
+    public static long RENDER_MAX_AGE = 10_000;
+
+    /**
+     * The text to show while the chunk image is being rendered
+     */
+    public static String PLACEHOLDER_TEXT = "Loading…";
+
     /**
      * The optional slot index this might use to add a click listener to
      */
@@ -62,6 +79,27 @@ public class MapWidget extends TextureWidget<Lump> {
      */
     protected World chunk_world = null;
 
+    /**
+     * Should the chunk images be rendered on a worker thread?
+     */
+    protected boolean render_async = true;
+
+    /**
+     * The optional provider of the surrounding lumps (used for prefetching)
+     */
+    protected MapLumpProvider lump_provider = null;
+
+    /**
+     * How many chunks around the shown one should be prefetched
+     */
+    protected int prefetch_radius = 1;
+
+    /**
+     * The optional function that returns the revision of a lump
+     * (Rendered images are reused until it changes)
+     */
+    protected ToLongFunction<Lump> lump_revision = null;
+
     /**
      * Create the widget
      *
@@ -128,10 +166,85 @@ public class MapWidget extends TextureWidget<Lump> {
         return this.chunk_world;
     }
 
+    /**
+     * Render the chunk images on a worker thread or not
+     * (This also requires the chunk's world to be set)
+     *
+     * @since   0.5.0
+     */
+    public void setRenderAsync(boolean render_async) {
+        this.render_async = render_async;
+    }
+
+    /**
+     * Set the provider of the surrounding lumps,
+     * so they can be rendered before they are shown
+     *
+     * @param   lump_provider    The provider (called on a worker thread)
+     * @param   prefetch_radius  How many chunks around the shown one to prefetch
+     *
+     * @since   0.5.0
+     */
+    public void setLumpProvider(MapLumpProvider lump_provider, int prefetch_radius) {
+        this.lump_provider = lump_provider;
+        this.prefetch_radius = prefetch_radius;
+    }
+
+    /**
+     * Set the function that returns the revision of a lump:
+     * a value that changes whenever its contents do.
+     * Rendered images are then reused until the revision changes,
+     * instead of being rendered again every RENDER_MAX_AGE milliseconds.
+     *
+     * @since   0.5.0
+     */
+    public void setLumpRevision(@Nullable ToLongFunction<Lump> lump_revision) {
+        this.lump_revision = lump_revision;
+    }
+
+    /**
+     * Get the revision of the given lump
+     * (0 if there is no revision function)
+     *
+     * @since   0.5.0
+     */
+    protected long getLumpRevision(Lump lump) {
+
+        if (this.lump_revision == null) {
+            return 0;
+        }
+
+        return this.lump_revision.applyAsLong(lump);
+    }
+
+    /**
+     * How long a rendered image can be used
+     * (Forever when the revision is known, because it changes with the contents)
+     *
+     * @since   0.5.0
+     */
+    protected long getRenderMaxAge() {
+        return this.lump_revision == null ? RENDER_MAX_AGE : 0;
+    }
+
+    /**
+     * Get the key of the chunk's world
+     * (The key is cached, the world itself should not be).
+     * Without it, chunks at the same position in different dimensions
+     * can't be told apart, so they are not rendered asynchronously.
+     *
+     * @since   0.5.0
+     */
+    @Nullable
+    protected RegistryKey<World> getWorldKey() {
+        return this.chunk_world == null ? null : this.chunk_world.getRegistryKey();
+    }
+
     /**
      * Listen for value updates
      *
      * @since   0.1.1
+     * @version 0.5.0
      */
     @Override
     public void addWithValue(TextBuilder builder, Lump lump) {
@@ -142,7 +255,14 @@ public class MapWidget extends TextureWidget<Lump> {
 
         Slot slot = null;
 
-        builder.printImage(lump.getImage(), this.x, this.y);
+        if (builder.getSkipImages()) {
+            // The image is left out (nothing is loading), so don't render it
+            builder.printEncodedImage(null, this.x);
+        } else if (this.render_async) {
+            this.printAsync(builder, lump);
+        } else {
+            builder.printImage(lump.getImage(), this.x, this.y);
+        }
 
         if (this.slot_index != null) {
             TexturedScreenHandler screen = builder.getScreenHandler();
@@ -174,6 +294,142 @@ public class MapWidget extends TextureWidget<Lump> {
         }
     }
 
+    /**
+     * Print the rendered image of the given lump,
+     * or a placeholder when it is still being rendered
+     *
+     * @since   0.5.0
+     */
+    protected void printAsync(TextBuilder builder, Lump lump) {
+
+        RegistryKey<World> world_key = this.getWorldKey();
+
+        // Without a world, images of other dimensions could be shown
+        if (world_key == null) {
+            builder.printImage(lump.getImage(), this.x, this.y);
+            return;
+        }
+
+        int y_offset = builder.getImageYOffset(this.y);
+        boolean skip_transparent = builder.getSkipTransparentPixels();
+        ChunkPos pos = lump.getPos();
+
+        // Rebuild the screen once the image is ready
+        Runnable on_ready = null;
+        TexturedScreenHandler handler = builder.getScreenHandler();
+
+        if (handler != null) {
+            on_ready = new ScreenRefreshTask(handler);
+        }
+
+        EncodedImage encoded = AsyncImageEncoder.SHARED.get(
+                new LumpKey(world_key, pos.toLong(), this.getLumpRevision(lump), y_offset, skip_transparent),
+                lump::getImage,
+                y_offset,
+                skip_transparent,
+                this.getRenderMaxAge(),
+                on_ready
+        );
+
+        if (encoded != null) {
+            builder.printEncodedImage(encoded, this.x);
+        } else {
+            this.printPlaceholder(builder);
+        }
+
+        this.prefetchAround(pos, y_offset, skip_transparent);
+    }
+
+    /**
+     * Start rendering the chunks around the given one,
+     * so panning the map doesn't have to wait for them
+     *
+     * @since   0.5.0
+     */
+    protected void prefetchAround(ChunkPos center, int y_offset, boolean skip_transparent) {
+
+        MapLumpProvider provider = this.lump_provider;
+        World world = this.chunk_world;
+        RegistryKey<World> world_key = this.getWorldKey();
+        long max_age = this.getRenderMaxAge();
+
+        if (provider == null || world_key == null || this.prefetch_radius <= 0) {
+            return;
+        }
+
+        for (int dx = -this.prefetch_radius; dx <= this.prefetch_radius; dx++) {
+            for (int dz = -this.prefetch_radius; dz <= this.prefetch_radius; dz++) {
+
+                if (dx == 0 && dz == 0) {
+                    continue;
+                }
+
+                ChunkPos pos = new ChunkPos(center.x + dx, center.z + dz);
+
+                if (this.lump_revision == null) {
+                    AsyncImageEncoder.SHARED.prefetch(
+                            new LumpKey(world_key, pos.toLong(), 0, y_offset, skip_transparent),
+                            () -> {
+                                Lump lump = provider.getLump(world, pos);
+                                return lump == null ? null : lump.getImage();
+                            },
+                            y_offset,
+                            skip_transparent,
+                            max_age
+                    );
+
+                    continue;
+                }
+
+                // The revision is only known once the lump has been fetched,
+                // so that happens on a worker thread too
+                AsyncImageEncoder.SHARED.execute(() -> {
+                    try {
+                        Lump lump = provider.getLump(world, pos);
+
+                        if (lump == null) {
+                            return;
+                        }
+
+                        AsyncImageEncoder.SHARED.prefetch(
+                                new LumpKey(world_key, pos.toLong(), this.getLumpRevision(lump), y_offset, skip_transparent),
+                                lump::getImage,
+                                y_offset,
+                                skip_transparent,
+                                max_age
+                        );
+                    } catch (Throwable e) {
+                        BBSB.log("Failed to prefetch lump", pos, e);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Print the cheap placeholder
+     *
+     * @since   0.5.0
+     */
+    protected void printPlaceholder(TextBuilder builder) {
+
+        int y = this.y;
+        ScreenBuilder screen_builder = this.getScreenBuilder();
+
+        if (screen_builder != null) {
+            y = screen_builder.getContainerY(y);
+        }
+
+        Font font = Font.ABSOLUTE_DEFAULT_COLLECTION.getClosestFont(y);
+
+        if (font == null) {
+            font = Font.DEFAULT;
+        }
+
+        builder.setCursor(this.x);
+        builder.print(PLACEHOLDER_TEXT, font);
+    }
+
     /**
      * Set the slot click listener
      *
@@ -260,4 +516,12 @@ public class MapWidget extends TextureWidget<Lump> {
             this.slot_event_listener.onClick(screen, slot, click_type, stack, lump);
         }
     }
+
+    /**
+     * Identifies a rendered lump image
+     * (The world is referenced by its key, so unloaded worlds are not kept alive)
+     *
+     * @since   0.5.0
+     */
+    private record LumpKey(RegistryKey<World> world, long pos, long revision, int y_offset, boolean skip_transparent) {}
 }
@@ -0,0 +1,21 @@
+package rocks.blackblock.screenbuilder.widgets;
+
+import net.minecraft.server.network.ServerPlayerEntity;
+import rocks.blackblock.screenbuilder.TexturedScreenHandler;
+
+/**
+ * Refreshes a screen on the server thread,
+ * used when something a widget was waiting for is ready.
+ * (Tasks for the same screen are equal, so they're only queued once)
+ *
+ * @since   0.5.0
+ */
+record ScreenRefreshTask(TexturedScreenHandler handler) implements Runnable {
+
+    @Override
+    public void run() {
+        if (this.handler.getPlayer() instanceof ServerPlayerEntity player && player.getServer() != null) {
+            player.getServer().execute(this.handler::refresh);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import rocks.blackblock.screenbuilder.BBSB;
 import rocks.blackblock.screenbuilder.text.Font;
 import rocks.blackblock.screenbuilder.text.MiniText;
 import rocks.blackblock.screenbuilder.text.TextBuilder;
+import rocks.blackblock.screenbuilder.text.TextLayout;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,6 +14,12 @@ public class TextWidget extends StringWidget {
 
     private List<MiniText> text = new ArrayList<>();
 
+    // The amount of lines per page (0 means no pages)
+    private int lines_per_page = 0;
+
+    // The current zero-based page
+    private int page = 0;
+
     /**
      * Clear all the text
      *
@@ -60,6 +67,69 @@ public class TextWidget extends StringWidget {
         this.printText(new MiniText(text));
     }
 
+    /**
+     * Set the amount of lines to show per page
+     * (0 shows all the lines)
+     *
+     * @since    0.5.0
+     */
+    public void setLinesPerPage(int lines_per_page) {
+        this.lines_per_page = lines_per_page;
+    }
+
+    /**
+     * Get the amount of lines to show per page
+     *
+     * @since    0.5.0
+     */
+    public int getLinesPerPage() {
+        return this.lines_per_page;
+    }
+
+    /**
+     * Set the zero-based page to show
+     *
+     * @since    0.5.0
+     */
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    /**
+     * Get the zero-based page to show
+     *
+     * @since    0.5.0
+     */
+    public int getPage() {
+        return this.page;
+    }
+
+    /**
+     * Get the amount of pages
+     *
+     * @since    0.5.0
+     */
+    public int getPageCount() {
+        return TextLayout.getPageCount(this.getLines(), this.lines_per_page);
+    }
+
+    /**
+     * Get all the word-wrapped lines of this widget.
+     * The layout of each text is cached, so this doesn't measure anything again.
+     *
+     * @since    0.5.0
+     */
+    public List<String> getLines() {
+
+        List<String> result = new ArrayList<>();
+
+        for (MiniText line : this.text) {
+            result.addAll(TextLayout.get(line.getRawString(), this.width, this.font_collection).getLines());
+        }
+
+        return result;
+    }
+
     /**
      * Add the widget to the text builder
      *
@@ -68,85 +138,26 @@ public class TextWidget extends StringWidget {
     @Override
     public void addToTextBuilder(TextBuilder builder) {
 
-        int space_width = this.font_collection.getWidth(" ");
-
         int current_y = this.getAdjustedY();
 
-        // Add each line of text
-        for (MiniText line : this.text) {
-            String raw_string = line.getRawString();
+        List<String> actual_lines = TextLayout.getPage(this.getLines(), this.page, this.lines_per_page);
 
-            if (raw_string == null) {
-                raw_string = "";
-            }
+        // Now iterate over the actual lines
+        for (String actual_line : actual_lines) {
 
-            // Split on forced newlines
-            String[] lines = raw_string.split("\r?\n|\r");
-
-            // Prepare actual lines to print
-            List<String> actual_lines = new ArrayList<>();
-
-            // Split the text into multiple, actual lines
-            for (String line_string : lines) {
-                // Get the width of this line
-                int line_width = this.font_collection.getWidth(line_string);
-
-                // If the line fits, just add it as is
-                if (line_width <= this.width) {
-                    actual_lines.add(line_string);
-                    continue;
-                }
-
-                // It doesn't fit, so split it into each word first
-                String[] words = line_string.split(" ");
-
-                int current_width = 0;
-                StringBuilder current_line = new StringBuilder();
-
-                // Add each word to the line
-                for (String word : words) {
-                    // Get the width of this word (including space)
-                    int word_width = this.font_collection.getWidth(word);
-
-                    if (current_width > 0) {
-                        word_width += space_width;
-                    }
-
-                    // If the word fits, just add it as is
-                    if (this.width <= 0 || current_width + word_width <= this.width || (current_line.length() == 0)) {
-                        current_width += word_width;
-
-                        // It's safe to always add the space at the end
-                        current_line.append(word).append(" ");
-                    } else {
-                        actual_lines.add(current_line.toString());
-                        current_width = word_width;
-                        current_line = new StringBuilder(word + " ");
-                    }
-                }
-
-                if (current_line.length() > 0) {
-                    actual_lines.add(current_line.toString());
-                }
-            }
-
-            // Now iterate over the actual lines
-            for (String actual_line : actual_lines) {
+            Font font = this.font_collection.getClosestFont(current_y);
+            int start_x = this.x;
 
-                Font font = this.font_collection.getClosestFont(current_y);
-                int start_x = this.x;
+            if (this.centered) {
                 int string_width = font.getWidth(actual_line);
+                start_x += (this.width - string_width) / 2;
+            }
 
-                if (this.centered) {
-                    start_x += (this.width - string_width) / 2;
-                }
-
-                builder.setCursor(start_x);
-                builder.setColor(TextColor.fromRgb(0x3f3f3f));
-                builder.print(actual_line, font);
+            builder.setCursor(start_x);
+            builder.setColor(TextColor.fromRgb(0x3f3f3f));
+            builder.print(actual_line, font);
 
-                current_y += 9;
-            }
+            current_y += 9;
         }
     }
 }
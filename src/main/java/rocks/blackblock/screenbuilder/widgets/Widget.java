@@ -142,6 +142,25 @@ public abstract class Widget<T> implements BibLog.Argable {
         }
     }
 
+    /**
+     * Does the output of this widget depend on its value?
+     * Widgets that don't can be compiled into the static part of the title.
+     *
+     * @since   0.5.0
+     */
+    public boolean isValueDependent() {
+        return true;
+    }
+
+    /**
+     * Is the output of this widget always the same?
+     *
+     * @since   0.5.0
+     */
+    public boolean hasStaticOutput() {
+        return !this.isValueDependent() && this.added_listener == null;
+    }
+
     /**
      * Set the added listener
      *
@@ -0,0 +1,70 @@
+package rocks.blackblock.screenbuilder.text;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The precomputed movement table of the SpacerFont
+ * has to produce exactly the same glyphs as the original algorithm
+ *
+ * @author  Jelle De Loecker   <jelle@elevenways.be>
+ * @since   0.5.0
+ */
+public class SpacerFontTest {
+
+    // The range of movements to compare
+    private static final int MIN_CHANGE = -40_000;
+    private static final int MAX_CHANGE = 40_000;
+
+    @BeforeAll
+    public static void setup() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @Test
+    public void appendMovementMatchesCalculatedString() {
+
+        SpacerFont font = Font.SPACE;
+        StringBuilder buffer = new StringBuilder();
+
+        for (int change = MIN_CHANGE; change <= MAX_CHANGE; change++) {
+            buffer.setLength(0);
+            font.appendMovement(buffer, change);
+
+            assertEquals(font.calculateMovementString(change), buffer.toString(), "Movement of " + change + " pixels");
+        }
+    }
+
+    @Test
+    public void appendMovementKeepsExistingText() {
+
+        SpacerFont font = Font.SPACE;
+        StringBuilder buffer = new StringBuilder();
+
+        for (int change = MIN_CHANGE; change <= MAX_CHANGE; change += 7) {
+            buffer.setLength(0);
+            buffer.append("ab");
+            font.appendMovement(buffer, change);
+
+            assertEquals("ab" + font.calculateMovementString(change), buffer.toString(), "Movement of " + change + " pixels");
+        }
+    }
+
+    @Test
+    public void getMovementStringUsesTheDifference() {
+
+        SpacerFont font = Font.SPACE;
+
+        for (int change = MIN_CHANGE; change <= MAX_CHANGE; change += 13) {
+            String expected = font.calculateMovementString(change);
+
+            assertEquals(expected, font.getMovementString(change), "Movement of " + change + " pixels");
+            assertEquals(expected, font.getMovementString(change + 100, 100), "Movement of " + change + " pixels from 100");
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package rocks.blackblock.screenbuilder.text;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.text.Style;
+import net.minecraft.text.Text;
+import net.minecraft.text.TextColor;
+import net.minecraft.util.Formatting;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Optimizing the text groups (and collapsing their movements)
+ * must never change where a glyph is rendered
+ *
+ * @author  Jelle De Loecker   <jelle@elevenways.be>
+ * @since   0.5.0
+ */
+public class TextGroupOptimizeTest {
+
+    // The characters of the spacer font (including the '$' splitter)
+    // plus a few that are not part of it
+    private static final String SPACE_ALPHABET = "-$"
+            + "①②③④⑤⑥⑦⑧⑨"
+            + "❶❷❸❹❺"
+            + "⓵⓶"
+            + "123456789AB";
+
+    // The colours to print with
+    private static final TextColor[] COLOURS = {
+            TextColor.fromFormatting(Formatting.WHITE),
+            TextColor.fromFormatting(Formatting.RED),
+            TextColor.fromRgb(0x3f3f3f),
+            TextColor.fromRgb(0x00aaff)
+    };
+
+    // The words to print
+    private static final String[] WORDS = {"", "a", "Hi", "Title", "i.l!", "[x]", "Slot 12", "ifkt"};
+
+    @BeforeAll
+    public static void setup() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @Test
+    public void collapsedMovementsKeepGlyphPositions() {
+
+        SpacerFont font = Font.SPACE;
+        Random random = new Random(1);
+
+        for (int i = 0; i < 200_000; i++) {
+            int length = 1 + random.nextInt(12);
+            StringBuilder text = new StringBuilder(length);
+
+            for (int j = 0; j < length; j++) {
+                text.append(SPACE_ALPHABET.charAt(random.nextInt(SPACE_ALPHABET.length())));
+            }
+
+            String before = text.toString();
+            font.collapseMovements(text);
+            String after = text.toString();
+
+            assertTrue(after.length() <= before.length(), "Collapsing made " + before + " longer");
+            assertEquals(getPositions(font, before), getPositions(font, after), "Collapsing " + before + " into " + after);
+        }
+    }
+
+    @Test
+    public void optimizedTitlesKeepGlyphPositions() {
+
+        for (int seed = 0; seed < 2_000; seed++) {
+            Text plain = createTitle(seed, false);
+            Text optimized = createTitle(seed, true);
+
+            assertEquals(getPositions(plain), getPositions(optimized), "Title of seed " + seed);
+            assertTrue(countNodes(optimized) <= countNodes(plain), "Optimizing added nodes for seed " + seed);
+        }
+    }
+
+    /**
+     * Build a random title
+     *
+     * @since   0.5.0
+     */
+    private static Text createTitle(int seed, boolean optimize) {
+
+        Random random = new Random(seed);
+        TextBuilder builder = new TextBuilder();
+        builder.setOptimize(optimize);
+
+        int operations = 1 + random.nextInt(40);
+
+        for (int i = 0; i < operations; i++) {
+            switch (random.nextInt(8)) {
+                case 0 -> builder.print(WORDS[random.nextInt(WORDS.length)]);
+                case 1 -> builder.print(WORDS[random.nextInt(WORDS.length)], Font.DEFAULT);
+                case 2 -> builder.moveCursor(random.nextInt(61) - 30);
+                case 3 -> builder.setCursor(random.nextInt(177));
+                case 4 -> builder.setColor(COLOURS[random.nextInt(COLOURS.length)]);
+                case 5 -> builder.setY(random.nextInt(60));
+                case 6 -> builder.createNewGroup();
+                default -> builder.insertUnsafe(WORDS[random.nextInt(WORDS.length)], Font.DEFAULT);
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Get the position of every glyph that is not a movement,
+     * and the final cursor position
+     *
+     * @since   0.5.0
+     */
+    private static List<String> getPositions(SpacerFont font, String text) {
+
+        List<String> result = new ArrayList<>();
+        int x = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+
+            if (!font.isMovementCharacter(character)) {
+                result.add(character + "@" + x);
+            }
+
+            x += font.getWidth(character, false);
+        }
+
+        result.add("end@" + x);
+
+        return result;
+    }
+
+    /**
+     * Get the position, font & colour of every glyph of the given title
+     * that is not a movement, and the final cursor position
+     *
+     * @since   0.5.0
+     */
+    private static List<String> getPositions(Text title) {
+
+        List<String> result = new ArrayList<>();
+        int[] x = {0};
+
+        title.visit((style, string) -> {
+            Font font = Font.getRegistered(style.getFont());
+
+            if (font == null) {
+                font = Font.DEFAULT;
+            }
+
+            for (int i = 0; i < string.length(); i++) {
+                char character = string.charAt(i);
+
+                if (font != Font.SPACE || !Font.SPACE.isMovementCharacter(character)) {
+                    result.add(character + " " + style.getFont() + " " + style.getColor() + " @" + x[0]);
+                }
+
+                x[0] += font.getWidth(character, false);
+            }
+
+            return Optional.empty();
+        }, Style.EMPTY);
+
+        result.add("end@" + x[0]);
+
+        return result;
+    }
+
+    /**
+     * Count the nodes of the given text
+     *
+     * @since   0.5.0
+     */
+    private static int countNodes(Text text) {
+
+        int result = 1;
+
+        for (Text sibling : text.getSiblings()) {
+            result += countNodes(sibling);
+        }
+
+        return result;
+    }
+}